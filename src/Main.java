@@ -1,11 +1,20 @@
 import com.vpavlov.console.LogType;
 import com.vpavlov.console.Logger;
+import com.vpavlov.map.ContractionHierarchy;
+import com.vpavlov.map.LruPathCache;
+import com.vpavlov.map.SearchMode;
 import com.vpavlov.simulation.helpers.Parser;
+import com.vpavlov.simulation.helpers.Scenario;
+import com.vpavlov.simulation.helpers.ScenarioRequestSource;
+import com.vpavlov.simulation.helpers.ScenarioSnapshot;
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
 import com.vpavlov.simulation.model.Simulation;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -18,13 +27,77 @@ public class Main {
     /**
      * Main program entry point
      *
-     * @param args - program arguments
+     * @param args - program arguments ([--parallel] [--snapshot] [--follow idle_seconds] [--warmup] [--path-cache megabytes] [--candidates count] [--ch] [--alt landmarks] [--search unidirectional|bidirectional|auto] file)
      */
     public static void main(String[] args){
-        if (args.length !=1){
+        String path = null;
+        boolean parallel = false;
+        boolean useSnapshot = false;
+        boolean warmUp = false;
+        long pathCacheBudget = -1;
+        int candidateCount = 0;
+        boolean useHierarchies = false;
+        int landmarkCount = 0;
+        SearchMode searchMode = null;
+        long followTimeout = -1;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--parallel")) {
+                    parallel = true;
+                } else if (arg.equals("--snapshot")) {
+                    useSnapshot = true;
+                } else if (arg.equals("--warmup")) {
+                    warmUp = true;
+                } else if (arg.equals("--path-cache") && i + 1 < args.length) {
+                    pathCacheBudget = Math.round(Double.parseDouble(args[++i]) * 1e6);
+                    if (pathCacheBudget <= 0) {
+                        throw new NumberFormatException("Path cache budget must be positive");
+                    }
+                } else if (arg.equals("--candidates") && i + 1 < args.length) {
+                    candidateCount = Integer.parseInt(args[++i]);
+                    if (candidateCount <= 0) {
+                        throw new NumberFormatException("Candidates count must be positive");
+                    }
+                } else if (arg.equals("--ch")) {
+                    useHierarchies = true;
+                } else if (arg.equals("--alt") && i + 1 < args.length) {
+                    landmarkCount = Integer.parseInt(args[++i]);
+                    if (landmarkCount <= 0) {
+                        throw new NumberFormatException("Landmarks count must be positive");
+                    }
+                } else if (arg.equals("--search") && i + 1 < args.length) {
+                    searchMode = SearchMode.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                } else if (arg.equals("--follow") && i + 1 < args.length) {
+                    followTimeout = Math.round(Double.parseDouble(args[++i]) * 1000);
+                } else if (path == null && !arg.startsWith("--")) {
+                    path = arg;
+                } else {
+                    System.err.println("Wrong arguments");
+                    return;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Wrong arguments");
+            return;
+        }
+        if (path == null){
             System.err.println("Wrong number of arguments");
             return;
         }
+        if (landmarkCount > 0 && (useHierarchies || (candidateCount == 0 && pathCacheBudget <= 0))) {
+            //oasis paths are read from the shortest path trees, only the point to point searches use landmarks
+            System.err.println("Landmarks are used only by point to point searches: --alt requires --candidates or --path-cache and can not be combined with --ch");
+            return;
+        }
+        if (searchMode != null && (useHierarchies || (candidateCount == 0 && pathCacheBudget <= 0))) {
+            System.err.println("Search variant is used only by point to point searches: --search requires --candidates or --path-cache and can not be combined with --ch");
+            return;
+        }
+        if (followTimeout >= 0 && (parallel || useSnapshot)) {
+            System.err.println("Follow mode can not be combined with parallel parsing or snapshots");
+            return;
+        }
         Locale.setDefault(Locale.US);
         Logger logger ;
         try {
@@ -35,17 +108,85 @@ public class Main {
         }
         logger.log(String.format("Available memory: %f MB",Runtime.getRuntime().freeMemory()/1e6), LogType.WARNING);
 
-        String path = args[0];
         File file = new File(path);
         if (!file.exists()){
             System.err.println("File does not exist.");
             return;
         }
 
-        String[] res = Parser.parseFile(file);
+        File hierarchies = useHierarchies ? new File(path + ContractionHierarchy.SUFFIX) : null;
+        Scenario scenario = null;
+        ScenarioSnapshot snapshot = null;
+        if (useSnapshot) {
+            snapshot = new ScenarioSnapshot(file);
+            scenario = snapshot.load();
+            if (scenario == null) {
+                logger.log("Scenario snapshot is missing or stale, it will be rebuilt", LogType.WARNING);
+                try (IScenarioReader reader = openScenario(file, parallel)) {
+                    Scenario parsed = new Scenario(reader);
+                    snapshot.write(parsed, new ScenarioRequestSource(reader, parsed.requestCount));
+                    scenario = snapshot.load();
+                    if (scenario == null) {
+                        logger.log("Written scenario snapshot could not be loaded, the scenario file is used instead", LogType.WARNING);
+                    }
+                } catch (IOException e) {
+                    logger.log("Scenario snapshot could not be written, the scenario file is used instead: " + e.getMessage(), LogType.WARNING);
+                }
+            } else {
+                logger.log("Scenario has been loaded from snapshot " + snapshot.getSnapshotFile(), LogType.INFO);
+            }
+        }
+        if (scenario != null) {
+            run(new Simulation(scenario, snapshot.getRequests(), logger), warmUp, pathCacheBudget, candidateCount, hierarchies, landmarkCount, searchMode);
+        } else {
+            //requests of the parsed scenario have been consumed by the snapshot writer, so the file is read again
+            try (IScenarioReader reader = followTimeout >= 0 ? Parser.followFile(file, followTimeout) : openScenario(file, parallel)) {
+                scenario = new Scenario(reader);
+                run(new Simulation(scenario, new ScenarioRequestSource(reader, scenario.requestCount), logger), warmUp, pathCacheBudget, candidateCount, hierarchies, landmarkCount, searchMode);
+            }
+        }
+        logger.close();
+    }
 
-        Simulation simulation = new Simulation(res, logger);
+    /**
+     * Runs the simulation
+     *
+     * @param simulation      simulation to run
+     * @param warmUp          flag if the paths should be computed before the simulation starts
+     * @param pathCacheBudget path cache memory budget in bytes (negative - unbounded cache)
+     * @param candidateCount  count of the candidate warehouses evaluated first (0 - all warehouses by priority)
+     * @param hierarchies     contraction hierarchies file (null - hierarchies are not used)
+     * @param landmarkCount   count of A* landmarks (0 - landmarks are not used)
+     * @param searchMode      point to point search variant (null - unidirectional search)
+     */
+    private static void run(Simulation simulation, boolean warmUp, long pathCacheBudget, int candidateCount, File hierarchies, int landmarkCount, SearchMode searchMode) {
+        if (pathCacheBudget > 0) {
+            simulation.setPathCache(new LruPathCache(pathCacheBudget));
+        }
+        simulation.setCandidateCount(candidateCount);
+        if (searchMode != null) {
+            simulation.setSearchMode(searchMode);
+        }
+        if (hierarchies != null) {
+            simulation.useContractionHierarchies(hierarchies);
+        }
+        if (landmarkCount > 0) {
+            simulation.useLandmarks(landmarkCount);
+        }
+        if (warmUp) {
+            simulation.warmUp(ForkJoinPool.commonPool());
+        }
         simulation.simulate();
-        logger.close();
+    }
+
+    /**
+     * Opens the scenario file for reading
+     *
+     * @param file     scenario file
+     * @param parallel parallel parsing flag
+     * @return scenario reader
+     */
+    private static IScenarioReader openScenario(File file, boolean parallel) {
+        return parallel ? Parser.parseFileParallel(file) : Parser.mapFile(file);
     }
 }
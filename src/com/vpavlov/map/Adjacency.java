@@ -0,0 +1,206 @@
+package com.vpavlov.map;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row adjacency of the road network <br>
+ * Neighbours of every vertex are unique and sorted by edge length (ties by neighbour id),
+ * adjacency entries are also ordered globally by length. Adjacency can be built from the roads
+ * or restored from the stored arrays (for example from the scenario snapshot).
+ *
+ * @author vpavlov
+ */
+public class Adjacency {
+
+    /**
+     * Adjacency offsets <br>
+     * Neighbours of the vertex {@code v} are {@code targets[offsets[v]..offsets[v + 1]-1]}
+     */
+    public final int[] offsets;
+
+    /**
+     * Adjacency targets
+     */
+    public final int[] targets;
+
+    /**
+     * Length of every adjacency entry (the same index as in {@link #targets})
+     */
+    public final double[] edgeLength;
+
+    /**
+     * Adjacency entries sorted by length ascending
+     */
+    public final int[] edgesByLength;
+
+    /**
+     * Source vertex of every adjacency entry (computed from the offsets)
+     */
+    public final int[] edgeSource;
+
+    /**
+     * Mean edge length
+     */
+    public final double meanEdgeLength;
+
+    /**
+     * Constructor <br>
+     * Restores the adjacency from the stored arrays and checks their consistency
+     *
+     * @param vertexCount    count of the graph vertexes
+     * @param offsets        adjacency offsets
+     * @param targets        adjacency targets
+     * @param edgeLength     length of every adjacency entry
+     * @param edgesByLength  adjacency entries sorted by length
+     * @param meanEdgeLength mean edge length
+     * @throws IllegalArgumentException if the arrays do not describe an adjacency of the graph
+     */
+    public Adjacency(int vertexCount, int[] offsets, int[] targets, double[] edgeLength, int[] edgesByLength, double meanEdgeLength) throws IllegalArgumentException {
+        int count = targets.length;
+        if (offsets.length != vertexCount + 1 || offsets[0] != 0 || offsets[vertexCount] != count
+                || edgeLength.length != count || edgesByLength.length != count) {
+            throw new IllegalArgumentException("Adjacency arrays do not match the graph");
+        }
+        edgeSource = new int[count];
+        for (int v = 0; v < vertexCount; v++) {
+            if (offsets[v] > offsets[v + 1]) {
+                throw new IllegalArgumentException("Adjacency offsets are not sorted");
+            }
+            Arrays.fill(edgeSource, offsets[v], offsets[v + 1], v);
+        }
+        for (int e = 0; e < count; e++) {
+            if (targets[e] < 0 || targets[e] >= vertexCount || edgesByLength[e] < 0 || edgesByLength[e] >= count) {
+                throw new IllegalArgumentException("Adjacency entry is out of range");
+            }
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edgeLength = edgeLength;
+        this.edgesByLength = edgesByLength;
+        this.meanEdgeLength = meanEdgeLength;
+    }
+
+    /**
+     * Builds the adjacency from the roads <br>
+     * Duplicate roads are merged, edges lengths are precomputed and neighbours are sorted by them
+     *
+     * @param x         X coordinates of the vertexes
+     * @param y         Y coordinates of the vertexes
+     * @param edgeFrom  first vertexes of the roads
+     * @param edgeTo    second vertexes of the roads
+     * @param edgeCount count of the roads
+     * @return built adjacency
+     */
+    public static Adjacency build(double[] x, double[] y, int[] edgeFrom, int[] edgeTo, int edgeCount) {
+        int vertexCount = x.length;
+        int[] start = new int[vertexCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            ++start[edgeFrom[i] + 1];
+            ++start[edgeTo[i] + 1];
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] all = new int[start[vertexCount]];
+        int[] fill = Arrays.copyOf(start, vertexCount);
+        for (int i = 0; i < edgeCount; i++) {
+            all[fill[edgeFrom[i]]++] = edgeTo[i];
+            all[fill[edgeTo[i]]++] = edgeFrom[i];
+        }
+
+        int[] offsets = new int[vertexCount + 1];
+        int count = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            Arrays.sort(all, start[v], start[v + 1]);
+            offsets[v] = count;
+            for (int i = start[v]; i < start[v + 1]; i++) {
+                if (i == start[v] || all[i] != all[i - 1]) {
+                    all[count++] = all[i];
+                }
+            }
+        }
+        offsets[vertexCount] = count;
+        int[] targets = Arrays.copyOf(all, count);
+
+        double[] edgeLength = new double[count];
+        int[] edgeSource = new int[count];
+        double lengthSum = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                double dx = x[v] - x[targets[e]];
+                double dy = y[v] - y[targets[e]];
+                edgeLength[e] = Math.sqrt(dx * dx + dy * dy);
+                edgeSource[e] = v;
+                lengthSum += edgeLength[e];
+            }
+        }
+        int[] edgesByLength = sortByLength(offsets, targets, edgeLength, edgeSource);
+        return new Adjacency(offsets, targets, edgeLength, edgesByLength, edgeSource, count == 0 ? 0 : lengthSum / count);
+    }
+
+    /**
+     * Constructor <br>
+     * Creates the adjacency from already consistent arrays
+     *
+     * @param offsets        adjacency offsets
+     * @param targets        adjacency targets
+     * @param edgeLength     length of every adjacency entry
+     * @param edgesByLength  adjacency entries sorted by length
+     * @param edgeSource     source vertex of every adjacency entry
+     * @param meanEdgeLength mean edge length
+     */
+    private Adjacency(int[] offsets, int[] targets, double[] edgeLength, int[] edgesByLength, int[] edgeSource, double meanEdgeLength) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edgeLength = edgeLength;
+        this.edgesByLength = edgesByLength;
+        this.edgeSource = edgeSource;
+        this.meanEdgeLength = meanEdgeLength;
+    }
+
+    /**
+     * Helper method <br>
+     * Sorts neighbours of every vertex by edge length in place (ties stay ordered by neighbour id)
+     * and creates the global order of adjacency entries by length
+     *
+     * @param offsets    adjacency offsets
+     * @param targets    adjacency targets (sorted in place)
+     * @param edgeLength length of every adjacency entry (sorted in place)
+     * @param edgeSource source vertex of every adjacency entry
+     * @return adjacency entries sorted by length
+     */
+    private static int[] sortByLength(int[] offsets, int[] targets, double[] edgeLength, int[] edgeSource) {
+        int count = targets.length;
+        double[] sorted = edgeLength.clone();
+        Arrays.sort(sorted);
+        int[] order = new int[count];
+        int[] used = new int[count];
+        for (int e = 0; e < count; e++) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle] < edgeLength[e]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            order[low + used[low]++] = e;
+        }
+
+        int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+        int[] sortedTargets = new int[count];
+        double[] sortedLength = new double[count];
+        for (int i = 0; i < count; i++) {
+            int e = order[i];
+            int entry = fill[edgeSource[e]]++;
+            sortedTargets[entry] = targets[e];
+            sortedLength[entry] = edgeLength[e];
+            order[i] = entry;
+        }
+        System.arraycopy(sortedTargets, 0, targets, 0, count);
+        System.arraycopy(sortedLength, 0, edgeLength, 0, count);
+        return order;
+    }
+}
@@ -0,0 +1,152 @@
+package com.vpavlov.map;
+
+import java.util.Arrays;
+
+/**
+ * Minimax (bottleneck) index of the graph <br>
+ * The minimal possible longest edge on a path between two vertexes equals the longest edge on their path
+ * in the minimum spanning forest. The index stores Kruskal reconstruction tree of the forest:
+ * leaves are graph vertexes and every inner node is one forest edge (merging two components),
+ * so the bottleneck of two vertexes is the edge of their lowest common ancestor. <br>
+ * Ancestors are found by jump pointers, so the index needs linear memory and the query takes O(log n).
+ *
+ * @author vpavlov
+ */
+public class BottleneckIndex {
+
+    /**
+     * Count of graph vertexes (leaves of the tree)
+     */
+    private final int vertexCount;
+
+    /**
+     * Parent of every tree node (-1 for roots)
+     */
+    private final int[] parent;
+
+    /**
+     * Jump pointer of every tree node (ancestor used to skip more levels at once)
+     */
+    private final int[] jump;
+
+    /**
+     * Depth of every tree node
+     */
+    private final int[] depth;
+
+    /**
+     * Root of the tree containing the node
+     */
+    private final int[] root;
+
+    /**
+     * Edge length of every inner node (indexed from 0 for the node {@link #vertexCount})
+     */
+    private final double[] weight;
+
+    /**
+     * Constructor <br>
+     * Builds the index by Kruskal algorithm
+     *
+     * @param vertexCount   count of graph vertexes
+     * @param edgesByLength adjacency entries sorted by length
+     * @param edgeSource    source vertex of every adjacency entry
+     * @param targets       target vertex of every adjacency entry
+     * @param edgeLength    length of every adjacency entry
+     */
+    public BottleneckIndex(int vertexCount, int[] edgesByLength, int[] edgeSource, int[] targets, double[] edgeLength) {
+        this.vertexCount = vertexCount;
+        int nodeCount = Math.max(2 * vertexCount - 1, 0);
+        parent = new int[nodeCount];
+        jump = new int[nodeCount];
+        depth = new int[nodeCount];
+        root = new int[nodeCount];
+        weight = new double[Math.max(vertexCount - 1, 0)];
+        Arrays.fill(parent, -1);
+
+        int[] component = new int[vertexCount];
+        int[] node = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            component[v] = v;
+            node[v] = v;
+        }
+        int next = vertexCount;
+        for (int e : edgesByLength) {
+            int first = find(component, edgeSource[e]);
+            int second = find(component, targets[e]);
+            if (first == second) {
+                continue;
+            }
+            parent[node[first]] = next;
+            parent[node[second]] = next;
+            weight[next - vertexCount] = edgeLength[e];
+            component[second] = first;
+            node[first] = next++;
+        }
+
+        for (int v = next - 1; v >= 0; v--) {
+            int p = parent[v];
+            if (p < 0) {
+                jump[v] = v;
+                root[v] = v;
+            } else {
+                depth[v] = depth[p] + 1;
+                root[v] = root[p];
+                int j = jump[p];
+                jump[v] = depth[p] - depth[j] == depth[j] - depth[jump[j]] ? jump[j] : p;
+            }
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Finds the representative of the component (with path halving)
+     *
+     * @param component components parents
+     * @param v         vertex
+     * @return representative of the vertex component
+     */
+    private static int find(int[] component, int v) {
+        while (component[v] != v) {
+            component[v] = component[component[v]];
+            v = component[v];
+        }
+        return v;
+    }
+
+    /**
+     * Bottleneck getter
+     *
+     * @param first  first vertex
+     * @param second second vertex
+     * @return minimal possible longest edge on a path between vertexes
+     * (0 for the same vertex, {@link Double#POSITIVE_INFINITY} if there is no path)
+     */
+    public double getBottleneck(int first, int second) {
+        if (first == second) {
+            return 0;
+        }
+        if (root[first] != root[second]) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int a = first;
+        int b = second;
+        if (depth[a] < depth[b]) {
+            a = second;
+            b = first;
+        }
+        while (depth[a] > depth[b]) {
+            a = depth[jump[a]] >= depth[b] ? jump[a] : parent[a];
+        }
+        while (a != b) {
+            if (jump[a] != jump[b]) {
+                a = jump[a];
+                b = jump[b];
+            } else {
+                a = parent[a];
+                b = parent[b];
+            }
+        }
+        return weight[a - vertexCount];
+    }
+}
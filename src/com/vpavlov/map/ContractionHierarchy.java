@@ -0,0 +1,736 @@
+package com.vpavlov.map;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy of the graph for one edge length limit <br>
+ * Only edges strictly shorter than the limit are used, so every shortcut (a contracted path) is passable
+ * by the camel types with this limit. Vertexes are contracted one by one in order of importance
+ * (edge difference and count of contracted neighbours); a shortcut is added only if the local witness search
+ * finds no other path that is not longer. <br>
+ * Contraction stops when the remaining vertexes become too dense, they form the core with the same (highest) rank. <br>
+ * Queries run bidirectional Dijkstra algorithm on the edges leading to more important vertexes (and on the core edges) only,
+ * so they settle only a small part of the graph. Shortcuts of the found path are unpacked into the original vertexes.
+ *
+ * @author vpavlov
+ */
+public class ContractionHierarchy {
+
+    /**
+     * Hierarchies file suffix (the file is stored next to the scenario file)
+     */
+    public static final String SUFFIX = ".ch";
+
+    /**
+     * Hierarchies file magic number
+     */
+    private static final int MAGIC = 0x43484945;
+
+    /**
+     * Hierarchies file format version (must be changed with every format change)
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Maximal count of vertexes settled by one witness search
+     * (a missed witness only adds a superfluous shortcut, it never breaks the distances)
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 50;
+
+    /**
+     * Maximal count of uncontracted neighbours of a contracted vertex <br>
+     * When the least important vertex has more neighbours, the remaining vertexes form the core:
+     * they stay uncontracted and are searched as an ordinary graph (it prevents quadratic growth of shortcuts in dense parts)
+     */
+    private static final int MAX_CONTRACTION_DEGREE = 32;
+
+    /**
+     * Initial capacity of the vertex adjacency during the contraction
+     */
+    private static final int INITIAL_DEGREE = 4;
+
+    /**
+     * Edge length limit (only strictly shorter edges are used)
+     */
+    private final double threshold;
+
+    /**
+     * Contraction order of every vertex (all core vertexes have the same highest rank)
+     */
+    private final int[] rank;
+
+    /**
+     * Upward adjacency offsets (compressed sparse row) <br>
+     * Edges of the vertex {@code v} leading to more important vertexes (or between core vertexes) are {@code upTargets[upOffsets[v]..upOffsets[v + 1]-1]}
+     */
+    private final int[] upOffsets;
+
+    /**
+     * Upward adjacency targets
+     */
+    private final int[] upTargets;
+
+    /**
+     * Length of every upward edge
+     */
+    private final double[] upLength;
+
+    /**
+     * Contracted vertex of every upward edge (-1 for the original edges)
+     */
+    private final int[] upMiddle;
+
+    /**
+     * Reusable query contexts (forward and backward search, one pair per thread)
+     */
+    private final ThreadLocal<SearchContext[]> contexts;
+
+    /**
+     * Dynamic graph used during the contraction
+     */
+    private static class Builder {
+
+        /**
+         * Neighbours of every vertex (the same edge is stored in both directions)
+         */
+        final int[][] target;
+
+        /**
+         * Length of every edge
+         */
+        final double[][] length;
+
+        /**
+         * Contracted vertex of every edge (-1 for the original edges)
+         */
+        final int[][] middle;
+
+        /**
+         * Edges count of every vertex
+         */
+        final int[] degree;
+
+        /**
+         * Contracted vertexes
+         */
+        final boolean[] contracted;
+
+        /**
+         * Count of contracted neighbours of every vertex
+         */
+        final int[] contractedNeighbours;
+
+        /**
+         * Witness search context
+         */
+        final SearchContext witness;
+
+        /**
+         * Uncontracted neighbours of the vertex being contracted
+         */
+        int[] neighbours = new int[INITIAL_DEGREE];
+
+        /**
+         * Edges lengths to the uncontracted neighbours of the vertex being contracted
+         */
+        double[] neighbourLength = new double[INITIAL_DEGREE];
+
+        /**
+         * Constructor <br>
+         * Copies the edges shorter than the limit
+         *
+         * @param offsets    adjacency offsets
+         * @param targets    adjacency targets
+         * @param edgeLength length of every adjacency entry
+         * @param threshold  edge length limit
+         */
+        Builder(int[] offsets, int[] targets, double[] edgeLength, double threshold) {
+            int vertexCount = offsets.length - 1;
+            target = new int[vertexCount][];
+            length = new double[vertexCount][];
+            middle = new int[vertexCount][];
+            degree = new int[vertexCount];
+            contracted = new boolean[vertexCount];
+            contractedNeighbours = new int[vertexCount];
+            witness = new SearchContext(vertexCount);
+            for (int v = 0; v < vertexCount; v++) {
+                int capacity = Math.max(INITIAL_DEGREE, offsets[v + 1] - offsets[v]);
+                target[v] = new int[capacity];
+                length[v] = new double[capacity];
+                middle[v] = new int[capacity];
+                for (int e = offsets[v]; e < offsets[v + 1] && edgeLength[e] < threshold; e++) {
+                    if (targets[e] != v) {
+                        target[v][degree[v]] = targets[e];
+                        length[v][degree[v]] = edgeLength[e];
+                        middle[v][degree[v]] = -1;
+                        ++degree[v];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the edge or shortens the existing one
+         *
+         * @param from             edge source
+         * @param to               edge target
+         * @param edgeLength       edge length
+         * @param contractedVertex contracted vertex of the edge (-1 for the original edge)
+         */
+        void addEdge(int from, int to, double edgeLength, int contractedVertex) {
+            for (int i = 0; i < degree[from]; i++) {
+                if (target[from][i] == to) {
+                    if (edgeLength < length[from][i]) {
+                        length[from][i] = edgeLength;
+                        middle[from][i] = contractedVertex;
+                    }
+                    return;
+                }
+            }
+            int i = degree[from]++;
+            if (i == target[from].length) {
+                target[from] = Arrays.copyOf(target[from], i * 2);
+                length[from] = Arrays.copyOf(length[from], i * 2);
+                middle[from] = Arrays.copyOf(middle[from], i * 2);
+            }
+            target[from][i] = to;
+            length[from][i] = edgeLength;
+            middle[from][i] = contractedVertex;
+        }
+
+        /**
+         * Removes the edge (edges to contracted vertexes are not needed by the upward adjacency of the source)
+         *
+         * @param from edge source
+         * @param to   edge target
+         */
+        void removeEdge(int from, int to) {
+            for (int i = 0; i < degree[from]; i++) {
+                if (target[from][i] == to) {
+                    int last = --degree[from];
+                    target[from][i] = target[from][last];
+                    length[from][i] = length[from][last];
+                    middle[from][i] = middle[from][last];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Collects the uncontracted neighbours of the vertex into {@link #neighbours}
+         *
+         * @param vertex vertex to collect the neighbours of
+         * @return count of the uncontracted neighbours
+         */
+        int collectNeighbours(int vertex) {
+            int count = 0;
+            for (int i = 0; i < degree[vertex]; i++) {
+                int next = target[vertex][i];
+                if (contracted[next]) {
+                    continue;
+                }
+                if (count == neighbours.length) {
+                    neighbours = Arrays.copyOf(neighbours, count * 2);
+                    neighbourLength = Arrays.copyOf(neighbourLength, count * 2);
+                }
+                neighbours[count] = next;
+                neighbourLength[count] = length[vertex][i];
+                ++count;
+            }
+            return count;
+        }
+
+        /**
+         * Searches the paths from the source avoiding the excluded vertex and contracted vertexes
+         *
+         * @param source   search source
+         * @param excluded vertex to avoid
+         * @param limit    maximal distance of interest
+         */
+        void searchWitnesses(int source, int excluded, double limit) {
+            witness.begin();
+            witness.visit(source, 0, -1);
+            witness.heap.push(source, 0);
+            int settled = 0;
+            while (!witness.heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT && witness.heap.peekKey() <= limit) {
+                int current = witness.heap.poll();
+                ++settled;
+                for (int i = 0; i < degree[current]; i++) {
+                    int next = target[current][i];
+                    if (contracted[next] || next == excluded) {
+                        continue;
+                    }
+                    double g = witness.g[current] + length[current][i];
+                    if (!witness.isVisited(next) || g < witness.g[next]) {
+                        witness.visit(next, g, current);
+                        witness.heap.push(next, g);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Contracts the vertex (or only counts the needed shortcuts)
+         *
+         * @param vertex vertex to contract
+         * @param apply  true - add the shortcuts, false - only count them
+         * @return count of the needed shortcuts
+         */
+        int contract(int vertex, boolean apply) {
+            int count = collectNeighbours(vertex);
+            int[] nb = neighbours;
+            double[] nbLength = neighbourLength;
+            int shortcuts = 0;
+            for (int i = 0; i < count - 1; i++) {
+                double limit = 0;
+                for (int j = i + 1; j < count; j++) {
+                    limit = Math.max(limit, nbLength[i] + nbLength[j]);
+                }
+                searchWitnesses(nb[i], vertex, limit);
+                for (int j = i + 1; j < count; j++) {
+                    double shortcut = nbLength[i] + nbLength[j];
+                    if (witness.isVisited(nb[j]) && witness.g[nb[j]] <= shortcut) {
+                        continue;
+                    }
+                    ++shortcuts;
+                    if (apply) {
+                        addEdge(nb[i], nb[j], shortcut, vertex);
+                        addEdge(nb[j], nb[i], shortcut, vertex);
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Computes the contraction importance of the vertex
+         *
+         * @param vertex vertex to evaluate
+         * @return importance (less important vertexes are contracted first)
+         */
+        double importance(int vertex) {
+            int shortcuts = contract(vertex, false);
+            return shortcuts - collectNeighbours(vertex) + contractedNeighbours[vertex];
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param threshold edge length limit
+     * @param rank      contraction order of every vertex
+     * @param upOffsets upward adjacency offsets
+     * @param upTargets upward adjacency targets
+     * @param upLength  length of every upward edge
+     * @param upMiddle  contracted vertex of every upward edge
+     */
+    private ContractionHierarchy(double threshold, int[] rank, int[] upOffsets, int[] upTargets, double[] upLength, int[] upMiddle) {
+        this.threshold = threshold;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upLength = upLength;
+        this.upMiddle = upMiddle;
+        int vertexCount = rank.length;
+        this.contexts = ThreadLocal.withInitial(() -> new SearchContext[]{new SearchContext(vertexCount), new SearchContext(vertexCount)});
+    }
+
+    /**
+     * Builds the hierarchy of the graph
+     *
+     * @param offsets    adjacency offsets (compressed sparse row)
+     * @param targets    adjacency targets
+     * @param edgeLength length of every adjacency entry
+     * @param threshold  edge length limit (only strictly shorter edges are used)
+     * @return contraction hierarchy
+     */
+    public static ContractionHierarchy build(int[] offsets, int[] targets, double[] edgeLength, double threshold) {
+        int vertexCount = offsets.length - 1;
+        Builder builder = new Builder(offsets, targets, edgeLength, threshold);
+        IndexedMinHeap queue = new IndexedMinHeap(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            queue.push(v, builder.importance(v));
+        }
+
+        int[] rank = new int[vertexCount];
+        int order = 0;
+        while (!queue.isEmpty()) {
+            double key = queue.peekKey();
+            int vertex = queue.poll();
+            double importance = builder.importance(vertex);
+            if (importance > key && importance > queue.peekKey()) {
+                queue.push(vertex, importance); // lazy update, the vertex became more important
+                continue;
+            }
+            if (builder.collectNeighbours(vertex) > MAX_CONTRACTION_DEGREE) {
+                break;
+            }
+            builder.contract(vertex, true);
+            builder.contracted[vertex] = true;
+            rank[vertex] = order++;
+            int count = builder.collectNeighbours(vertex);
+            for (int i = 0; i < count; i++) {
+                ++builder.contractedNeighbours[builder.neighbours[i]];
+                builder.removeEdge(builder.neighbours[i], vertex);
+            }
+        }
+
+        for (int v = 0; v < vertexCount; v++) {
+            if (!builder.contracted[v]) {
+                rank[v] = order;
+            }
+        }
+
+        int[] upOffsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            upOffsets[v + 1] = upOffsets[v];
+            for (int i = 0; i < builder.degree[v]; i++) {
+                if (isUpward(rank, v, builder.target[v][i], order)) {
+                    ++upOffsets[v + 1];
+                }
+            }
+        }
+        int[] upTargets = new int[upOffsets[vertexCount]];
+        double[] upLength = new double[upTargets.length];
+        int[] upMiddle = new int[upTargets.length];
+        for (int v = 0; v < vertexCount; v++) {
+            int e = upOffsets[v];
+            for (int i = 0; i < builder.degree[v]; i++) {
+                if (isUpward(rank, v, builder.target[v][i], order)) {
+                    upTargets[e] = builder.target[v][i];
+                    upLength[e] = builder.length[v][i];
+                    upMiddle[e] = builder.middle[v][i];
+                    ++e;
+                }
+            }
+        }
+        return new ContractionHierarchy(threshold, rank, upOffsets, upTargets, upLength, upMiddle);
+    }
+
+    /**
+     * Helper method <br>
+     * Checks if the edge is searched by queries
+     *
+     * @param rank     contraction order of every vertex
+     * @param from     edge source
+     * @param to       edge target
+     * @param coreRank rank of the core vertexes
+     * @return true if the edge leads to more important vertex or connects two core vertexes, else false
+     */
+    private static boolean isUpward(int[] rank, int from, int to, int coreRank) {
+        return rank[to] > rank[from] || (rank[from] == coreRank && rank[to] == coreRank);
+    }
+
+    /**
+     * Edge length limit getter
+     *
+     * @return edge length limit (only strictly shorter edges are used)
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Shortcuts count getter
+     *
+     * @return count of the added shortcuts
+     */
+    public int getShortcutCount() {
+        int count = 0;
+        for (int middle : upMiddle) {
+            if (middle >= 0) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Helper method <br>
+     * Runs bidirectional search in the hierarchy
+     *
+     * @param start    path start
+     * @param end      path target
+     * @param forward  forward search context
+     * @param backward backward search context
+     * @return vertex where the searches meet on the shortest path or -1 if there is no path
+     */
+    private int search(int start, int end, SearchContext forward, SearchContext backward) {
+        forward.begin();
+        backward.begin();
+        forward.visit(start, 0, -1);
+        forward.heap.push(start, 0);
+        backward.visit(end, 0, -1);
+        backward.heap.push(end, 0);
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (Math.min(forward.heap.peekKey(), backward.heap.peekKey()) < best) {
+            boolean isForward = forward.heap.peekKey() <= backward.heap.peekKey();
+            SearchContext current = isForward ? forward : backward;
+            SearchContext other = isForward ? backward : forward;
+            int vertex = current.heap.poll();
+            if (other.isVisited(vertex) && current.g[vertex] + other.g[vertex] < best) {
+                best = current.g[vertex] + other.g[vertex];
+                meet = vertex;
+            }
+            for (int e = upOffsets[vertex]; e < upOffsets[vertex + 1]; e++) {
+                int next = upTargets[e];
+                double g = current.g[vertex] + upLength[e];
+                if (!current.isVisited(next) || g < current.g[next]) {
+                    current.visit(next, g, vertex);
+                    current.heap.push(next, g);
+                }
+            }
+        }
+        return meet;
+    }
+
+    /**
+     * Searches the shortest path distance
+     *
+     * @param start path start
+     * @param end   path target
+     * @return distance of the shortest path or {@link Double#POSITIVE_INFINITY} if there is no path
+     */
+    public double findDistance(int start, int end) {
+        SearchContext[] context = contexts.get();
+        int meet = search(start, end, context[0], context[1]);
+        return meet < 0 ? Double.POSITIVE_INFINITY : context[0].g[meet] + context[1].g[meet];
+    }
+
+    /**
+     * Searches the shortest path
+     *
+     * @param start path start
+     * @param end   path target
+     * @return vertexes of the path (start -> end) or null if there is no path
+     */
+    public int[] findPath(int start, int end) {
+        SearchContext[] context = contexts.get();
+        int meet = search(start, end, context[0], context[1]);
+        if (meet < 0) {
+            return null;
+        }
+        int[] hierarchyPath = new int[INITIAL_DEGREE];
+        int count = 0;
+        for (int v = meet; v >= 0; v = context[0].parent[v]) {
+            if (count == hierarchyPath.length) {
+                hierarchyPath = Arrays.copyOf(hierarchyPath, count * 2);
+            }
+            hierarchyPath[count++] = v;
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swap = hierarchyPath[i];
+            hierarchyPath[i] = hierarchyPath[j];
+            hierarchyPath[j] = swap;
+        }
+        for (int v = context[1].parent[meet]; v >= 0; v = context[1].parent[v]) {
+            if (count == hierarchyPath.length) {
+                hierarchyPath = Arrays.copyOf(hierarchyPath, count * 2);
+            }
+            hierarchyPath[count++] = v;
+        }
+        return unpack(hierarchyPath, count);
+    }
+
+    /**
+     * Helper method <br>
+     * Replaces the shortcuts of the path by the original edges
+     *
+     * @param hierarchyPath path vertexes in the hierarchy
+     * @param count         count of the path vertexes
+     * @return vertexes of the path in the original graph
+     */
+    private int[] unpack(int[] hierarchyPath, int count) {
+        int[] path = new int[Math.max(count, INITIAL_DEGREE)];
+        int length = 0;
+        path[length++] = hierarchyPath[0];
+        int[] stackFrom = new int[INITIAL_DEGREE];
+        int[] stackTo = new int[INITIAL_DEGREE];
+        for (int i = 1; i < count; i++) {
+            int top = 0;
+            stackFrom[top] = hierarchyPath[i - 1];
+            stackTo[top++] = hierarchyPath[i];
+            while (top > 0) {
+                int from = stackFrom[--top];
+                int to = stackTo[top];
+                int middle = upMiddle[findEdge(from, to)];
+                if (middle < 0) {
+                    if (length == path.length) {
+                        path = Arrays.copyOf(path, length * 2);
+                    }
+                    path[length++] = to;
+                    continue;
+                }
+                if (top + 2 > stackFrom.length) {
+                    stackFrom = Arrays.copyOf(stackFrom, stackFrom.length * 2);
+                    stackTo = Arrays.copyOf(stackTo, stackTo.length * 2);
+                }
+                stackFrom[top] = middle;
+                stackTo[top++] = to;
+                stackFrom[top] = from;
+                stackTo[top++] = middle;
+            }
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    /**
+     * Helper method <br>
+     * Finds the upward edge between two vertexes
+     *
+     * @param first  first vertex
+     * @param second second vertex
+     * @return index of the upward edge
+     * @throws IllegalStateException if the vertexes are not connected in the hierarchy
+     */
+    private int findEdge(int first, int second) throws IllegalStateException {
+        int lower = rank[first] <= rank[second] ? first : second;
+        int higher = lower == first ? second : first;
+        for (int e = upOffsets[lower]; e < upOffsets[lower + 1]; e++) {
+            if (upTargets[e] == higher) {
+                return e;
+            }
+        }
+        throw new IllegalStateException(String.format("Hierarchy has no edge %d - %d", first, second));
+    }
+
+    /**
+     * Writes hierarchies into the file <br>
+     * Hierarchies are written into temporary file first, so the broken file is never left
+     * (the temporary file is deleted if writing fails)
+     *
+     * @param file        file to write into
+     * @param fingerprint fingerprint of the graph the hierarchies have been built for
+     * @param hierarchies hierarchies to write
+     * @throws IOException if the hierarchies can not be written
+     */
+    public static void write(File file, long fingerprint, ContractionHierarchy[] hierarchies) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                out.writeInt(hierarchies.length);
+                for (ContractionHierarchy hierarchy : hierarchies) {
+                    out.writeDouble(hierarchy.threshold);
+                    writeInts(out, hierarchy.rank);
+                    writeInts(out, hierarchy.upOffsets);
+                    writeInts(out, hierarchy.upTargets);
+                    writeInts(out, hierarchy.upMiddle);
+                    out.writeInt(hierarchy.upLength.length);
+                    for (double value : hierarchy.upLength) {
+                        out.writeDouble(value);
+                    }
+                }
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * Reads hierarchies from the file
+     *
+     * @param file        file to read
+     * @param fingerprint fingerprint of the current graph
+     * @param thresholds  expected edge length limits of the hierarchies
+     * @return read hierarchies or null if the file does not exist, is stale or corrupted
+     */
+    public static ContractionHierarchy[] read(File file, long fingerprint, double[] thresholds) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fingerprint || in.readInt() != thresholds.length) {
+                return null;
+            }
+            ContractionHierarchy[] hierarchies = new ContractionHierarchy[thresholds.length];
+            for (int k = 0; k < thresholds.length; k++) {
+                double threshold = in.readDouble();
+                int[] rank = readInts(in);
+                int[] upOffsets = readInts(in);
+                int[] upTargets = readInts(in);
+                int[] upMiddle = readInts(in);
+                double[] upLength = new double[in.readInt()];
+                for (int i = 0; i < upLength.length; i++) {
+                    upLength[i] = in.readDouble();
+                }
+                if (Double.compare(threshold, thresholds[k]) != 0 || !isValid(rank, upOffsets, upTargets, upMiddle, upLength)) {
+                    return null;
+                }
+                hierarchies[k] = new ContractionHierarchy(threshold, rank, upOffsets, upTargets, upLength, upMiddle);
+            }
+            return in.read() < 0 ? hierarchies : null;
+        } catch (IOException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Checks that the read arrays describe a hierarchy
+     *
+     * @param rank      contraction order of every vertex
+     * @param upOffsets upward adjacency offsets
+     * @param upTargets upward adjacency targets
+     * @param upMiddle  contracted vertex of every upward edge
+     * @param upLength  length of every upward edge
+     * @return true if the arrays are consistent, else false
+     */
+    private static boolean isValid(int[] rank, int[] upOffsets, int[] upTargets, int[] upMiddle, double[] upLength) {
+        int vertexCount = rank.length;
+        if (upOffsets.length != vertexCount + 1 || upOffsets[0] != 0 || upOffsets[vertexCount] != upTargets.length
+                || upMiddle.length != upTargets.length || upLength.length != upTargets.length) {
+            return false;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            if (upOffsets[v] > upOffsets[v + 1]) {
+                return false;
+            }
+        }
+        for (int e = 0; e < upTargets.length; e++) {
+            if (upTargets[e] < 0 || upTargets[e] >= vertexCount || upMiddle[e] < -1 || upMiddle[e] >= vertexCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method <br>
+     * Writes integers array with its length
+     *
+     * @param out    stream to write into
+     * @param values values to write
+     * @throws IOException if writing fails
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Reads integers array with its length
+     *
+     * @param in stream to read from
+     * @return read values
+     * @throws IOException if reading fails
+     */
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+}
@@ -1,10 +1,8 @@
 package com.vpavlov.map;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
- * Map graph entity (vertex)
+ * Map graph entity (vertex) <br>
+ * Neighbours are stored in the compressed adjacency of {@link MapGraph}
  *
  * @author vpavlov
  */
@@ -15,11 +13,6 @@ public class GraphEntity {
      */
     public final Point point;
 
-    /**
-     * List of neighbours (if there are no neighbours, then it's null)
-     */
-    public Set<Integer> neighbours = null;
-
     /**
      * Constructor
      *
@@ -28,16 +21,4 @@ public class GraphEntity {
     public GraphEntity(Point point) {
         this.point = point;
     }
-
-    /**
-     * Adding new neighbour to the vertex
-     *
-     * @param index -index of neighbour in the graph
-     */
-    public void addNeighbour(int index) {
-        if (neighbours == null) {
-            neighbours = new HashSet<>();
-        }
-        neighbours.add(index);
-    }
 }
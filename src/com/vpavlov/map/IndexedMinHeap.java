@@ -0,0 +1,172 @@
+package com.vpavlov.map;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap of vertex ids with double keys <br>
+ * Every vertex is in the heap at most once, so its key can be decreased in place.
+ * The heap does not allocate after the construction.
+ *
+ * @author vpavlov
+ */
+public class IndexedMinHeap {
+
+    /**
+     * Heap of vertex ids
+     */
+    private final int[] heap;
+
+    /**
+     * Position of every vertex in the heap (-1 if the vertex is not in the heap)
+     */
+    private final int[] position;
+
+    /**
+     * Key of every vertex in the heap
+     */
+    private final double[] key;
+
+    /**
+     * Count of vertexes in the heap
+     */
+    private int size = 0;
+
+    /**
+     * Constructor
+     *
+     * @param capacity count of vertexes (ids are in [0, capacity-1])
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        key = new double[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Checks if the heap is empty
+     *
+     * @return true if the heap is empty, else false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the vertex is in the heap
+     *
+     * @param vertex vertex id
+     * @return true if the vertex is in the heap, else false
+     */
+    public boolean contains(int vertex) {
+        return position[vertex] >= 0;
+    }
+
+    /**
+     * Adds the vertex into the heap or decreases its key <br>
+     * Larger key of the vertex already in the heap is ignored
+     *
+     * @param vertex vertex id
+     * @param value  vertex key
+     */
+    public void push(int vertex, double value) {
+        int i = position[vertex];
+        if (i < 0) {
+            i = size++;
+            heap[i] = vertex;
+            position[vertex] = i;
+        } else if (value >= key[vertex]) {
+            return;
+        }
+        key[vertex] = value;
+        siftUp(i);
+    }
+
+    /**
+     * Removes the vertex with minimal key
+     *
+     * @return vertex id
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int top = heap[0];
+        position[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Minimal key getter
+     *
+     * @return key of the top vertex ({@link Double#POSITIVE_INFINITY} if the heap is empty)
+     */
+    public double peekKey() {
+        return size == 0 ? Double.POSITIVE_INFINITY : key[heap[0]];
+    }
+
+    /**
+     * Removes all vertexes from the heap
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the heap entry up to its place
+     *
+     * @param i heap index
+     */
+    private void siftUp(int i) {
+        int vertex = heap[i];
+        double value = key[vertex];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (key[heap[parent]] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = vertex;
+        position[vertex] = i;
+    }
+
+    /**
+     * Moves the heap entry down to its place
+     *
+     * @param i heap index
+     */
+    private void siftDown(int i) {
+        int vertex = heap[i];
+        double value = key[vertex];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+                ++child;
+            }
+            if (key[heap[child]] >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = vertex;
+        position[vertex] = i;
+    }
+}
@@ -0,0 +1,132 @@
+package com.vpavlov.map;
+
+import java.util.Arrays;
+
+/**
+ * Landmark distances for A* search (ALT heuristic) <br>
+ * For every landmark {@code L} the triangle inequality gives {@code d(v, t) >= |d(L, t) - d(L, v)|}.
+ * Roads are bidirectional, so one distances array per landmark serves both directions.
+ * Distances are computed on the whole graph (without camel types limits): limited paths are never shorter,
+ * so the bounds are valid (and consistent) for every limit. <br>
+ * Landmarks are selected by the farthest point heuristic: every next landmark is the vertex farthest
+ * from the start vertex and the already selected landmarks.
+ *
+ * @author vpavlov
+ */
+public class LandmarkIndex {
+
+    /**
+     * Selected landmarks
+     */
+    private final int[] landmarks;
+
+    /**
+     * Distances from landmarks ({@code distance[v * landmarksCount + i]} is the distance between the landmark {@code i} and the vertex {@code v},
+     * {@link Double#POSITIVE_INFINITY} if they are not connected)
+     */
+    private final double[] distance;
+
+    /**
+     * Constructor <br>
+     * Selects landmarks in the connected component of the start vertex and computes their distances
+     *
+     * @param offsets    adjacency offsets (compressed sparse row)
+     * @param targets    adjacency targets
+     * @param edgeLength length of every adjacency entry
+     * @param count      desired count of landmarks
+     * @param start      vertex to start the selection from
+     */
+    public LandmarkIndex(int[] offsets, int[] targets, double[] edgeLength, int count, int start) {
+        int vertexCount = offsets.length - 1;
+        IndexedMinHeap heap = new IndexedMinHeap(vertexCount);
+        double[] nearest = new double[vertexCount];
+        computeDistances(offsets, targets, edgeLength, start, nearest, heap);
+
+        int[] selected = new int[count];
+        double[][] rows = new double[count][];
+        int found = 0;
+        while (found < count) {
+            int farthest = -1;
+            for (int v = 0; v < vertexCount; v++) {
+                if (nearest[v] > 0 && nearest[v] != Double.POSITIVE_INFINITY && (farthest < 0 || nearest[v] > nearest[farthest])) {
+                    farthest = v;
+                }
+            }
+            if (farthest < 0) {
+                break;
+            }
+            double[] row = new double[vertexCount];
+            computeDistances(offsets, targets, edgeLength, farthest, row, heap);
+            for (int v = 0; v < vertexCount; v++) {
+                nearest[v] = Math.min(nearest[v], row[v]);
+            }
+            selected[found] = farthest;
+            rows[found++] = row;
+        }
+
+        landmarks = Arrays.copyOf(selected, found);
+        distance = new double[vertexCount * found];
+        for (int i = 0; i < found; i++) {
+            for (int v = 0; v < vertexCount; v++) {
+                distance[v * found + i] = rows[i][v];
+            }
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Computes distances from the source to all vertexes by Dijkstra algorithm
+     *
+     * @param offsets    adjacency offsets
+     * @param targets    adjacency targets
+     * @param edgeLength length of every adjacency entry
+     * @param source     source vertex
+     * @param result     array to fill with distances ({@link Double#POSITIVE_INFINITY} for unreachable vertexes)
+     * @param heap       empty heap to use
+     */
+    private static void computeDistances(int[] offsets, int[] targets, double[] edgeLength, int source, double[] result, IndexedMinHeap heap) {
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        result[source] = 0;
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            int v = heap.poll();
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                double g = result[v] + edgeLength[e];
+                if (g < result[targets[e]]) {
+                    result[targets[e]] = g;
+                    heap.push(targets[e], g);
+                }
+            }
+        }
+    }
+
+    /**
+     * Landmarks getter
+     *
+     * @return selected landmarks
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Computes the lower bound of the distance between two vertexes
+     *
+     * @param first  first vertex
+     * @param second second vertex
+     * @return the best landmark lower bound (0 if there is no usable landmark)
+     */
+    public double getLowerBound(int first, int second) {
+        int count = landmarks.length;
+        int a = first * count;
+        int b = second * count;
+        double bound = 0;
+        for (int i = 0; i < count; i++) {
+            double d = Math.abs(distance[a + i] - distance[b + i]);
+            if (d > bound && d != Double.POSITIVE_INFINITY) {
+                bound = d;
+            }
+        }
+        return bound;
+    }
+}
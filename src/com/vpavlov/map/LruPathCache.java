@@ -0,0 +1,169 @@
+package com.vpavlov.map;
+
+import com.vpavlov.map.api.IPathCache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Path cache with memory budget <br>
+ * Paths queues and warehouses shortest path trees share one budget.
+ * Trees are stored only if they fit into the budget left by the other trees and they are never evicted,
+ * so the warehouses without stored trees use point to point searches instead of recomputing the trees.
+ * When the estimated memory exceeds the budget, the least recently used paths queues are evicted
+ * (paths queue that does not fit even into the budget left by the trees is not stored)
+ *
+ * @author vpavlov
+ */
+public class LruPathCache implements IPathCache {
+
+    /**
+     * Cached paths by (oasis id, warehouse id) key in access order
+     */
+    private final LinkedHashMap<Long, PriorityQueue<Path>> paths = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Estimated memory of every cached queue (the same key as paths)
+     */
+    private final Map<Long, Long> weights = new HashMap<>();
+
+    /**
+     * Cached shortest path trees by warehouse id
+     */
+    private final Map<Integer, ShortestPathTree[]> trees = new HashMap<>();
+
+    /**
+     * Memory budget in bytes
+     */
+    private final long budget;
+
+    /**
+     * Estimated memory of the cached paths queues
+     */
+    private long pathsWeight = 0;
+
+    /**
+     * Estimated memory of the cached trees
+     */
+    private long treesWeight = 0;
+
+    /**
+     * Hits count
+     */
+    private long hits = 0;
+
+    /**
+     * Misses count
+     */
+    private long misses = 0;
+
+    /**
+     * Evictions count
+     */
+    private long evictions = 0;
+
+    /**
+     * Constructor
+     *
+     * @param budget memory budget in bytes
+     * @throws IllegalArgumentException if the budget is not positive
+     */
+    public LruPathCache(long budget) throws IllegalArgumentException {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Path cache budget must be positive");
+        }
+        this.budget = budget;
+    }
+
+    @Override
+    public synchronized PriorityQueue<Path> get(int oasisId, int warehouseId) {
+        PriorityQueue<Path> queue = paths.get(IPathCache.key(oasisId, warehouseId));
+        if (queue == null) {
+            ++misses;
+        } else {
+            ++hits;
+        }
+        return queue;
+    }
+
+    @Override
+    public synchronized void put(int oasisId, int warehouseId, PriorityQueue<Path> queue) {
+        long key = IPathCache.key(oasisId, warehouseId);
+        long queueWeight = IPathCache.estimateWeight(queue);
+        paths.put(key, queue);
+        Long previous = weights.put(key, queueWeight);
+        pathsWeight += queueWeight - (previous == null ? 0 : previous);
+        evictPaths();
+    }
+
+    @Override
+    public synchronized boolean contains(int oasisId, int warehouseId) {
+        return paths.containsKey(IPathCache.key(oasisId, warehouseId));
+    }
+
+    @Override
+    public synchronized ShortestPathTree[] getTrees(int warehouseId) {
+        return trees.get(warehouseId);
+    }
+
+    @Override
+    public synchronized boolean canStoreTrees(long weight) {
+        return treesWeight + weight <= budget;
+    }
+
+    @Override
+    public synchronized void putTrees(int warehouseId, ShortestPathTree[] warehouseTrees) {
+        long weight = IPathCache.estimateWeight(warehouseTrees);
+        ShortestPathTree[] previous = trees.get(warehouseId);
+        long previousWeight = previous == null ? 0 : IPathCache.estimateWeight(previous);
+        if (treesWeight - previousWeight + weight > budget) {
+            return;
+        }
+        trees.put(warehouseId, warehouseTrees);
+        treesWeight += weight - previousWeight;
+        evictPaths();
+    }
+
+    /**
+     * Helper method <br>
+     * Evicts the least recently used paths queues while the budget is exceeded
+     * (the most recently stored queue is evicted too if it does not fit into the budget left by the trees)
+     */
+    private void evictPaths() {
+        Iterator<Map.Entry<Long, PriorityQueue<Path>>> iterator = paths.entrySet().iterator();
+        while (treesWeight + pathsWeight > budget && iterator.hasNext()) {
+            long eldest = iterator.next().getKey();
+            iterator.remove();
+            pathsWeight -= weights.remove(eldest);
+            ++evictions;
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return paths.size();
+    }
+
+    @Override
+    public synchronized long getWeight() {
+        return pathsWeight + treesWeight;
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
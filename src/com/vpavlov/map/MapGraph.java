@@ -1,10 +1,18 @@
 package com.vpavlov.map;
 
 import com.vpavlov.map.api.IOasisPathsGetter;
+import com.vpavlov.map.api.IPathCache;
 import com.vpavlov.simulation.model.CamelType;
 import com.vpavlov.simulation.model.Warehouse;
+import com.vpavlov.simulation.model.WarehouseRanking;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Simulation map represented as a graph
@@ -21,19 +29,29 @@ public class MapGraph {
     private class OasisPathsGetter implements IOasisPathsGetter {
 
         /**
-         * Current warehouse index (from the sorted list)
+         * Iterator over the warehouses by priority
          */
-        private int currentWarehouse = 0;
+        private final Iterator<Warehouse> warehouseIterator;
 
         /**
-         * Oasis id
+         * Iterator over the oasis candidate warehouses by priority (null if candidates are not used)
          */
-        private final int oasisId;
+        private final Iterator<Warehouse> candidateIterator;
+
+        /**
+         * Ids of the oasis candidate warehouses (sorted, empty if candidates are not used)
+         */
+        private final int[] candidateIds;
 
         /**
-         * Path for the oasis
+         * Next warehouse to get paths to (null if there is no next warehouse)
          */
-        private final HashMap<Warehouse, PriorityQueue<Path>> oasisPaths;
+        private Warehouse nextWarehouse;
+
+        /**
+         * Oasis id
+         */
+        private final int oasisId;
 
         /**
          * Constructor
@@ -43,31 +61,64 @@ public class MapGraph {
          */
         OasisPathsGetter(int oasisId) throws IllegalArgumentException {
             //System.out.printf("[DEBUG] PathGetter: oasisId=%d\n", oasisId);
-            if (oasisId < warehouses.size()) {
+            if (oasisId < warehouseCount || oasisId >= graph.size()) {
                 throw new IllegalArgumentException(String.format("Illegal oasis id %d. Oasis id should be in [%d,%d]", oasisId, warehouseCount, graph.size() - 1));
             }
-            warehouses.sort(null);
             this.oasisId = oasisId;
-            oasisPaths = paths.computeIfAbsent(oasisId, k -> new HashMap<>());
+            this.warehouseIterator = warehouses.iterator();
+            if (candidateCount > 0) {
+                int[] candidates = getCandidates(oasisId);
+                List<Warehouse> candidateList = new ArrayList<>(candidates.length);
+                for (int id : candidates) {
+                    candidateList.add(warehouseById.get(id));
+                }
+                warehouses.sort(candidateList);
+                this.candidateIterator = candidateList.iterator();
+                this.candidateIds = candidates.clone();
+                Arrays.sort(candidateIds);
+            } else {
+                this.candidateIterator = null;
+                this.candidateIds = new int[0];
+            }
+            this.nextWarehouse = advance();
+        }
+
+        /**
+         * Helper method <br>
+         * Finds the next warehouse: candidates go first, then the rest of warehouses (fallback)
+         *
+         * @return next warehouse or null if there is no next warehouse
+         */
+        private Warehouse advance() {
+            if (candidateIterator != null && candidateIterator.hasNext()) {
+                return candidateIterator.next();
+            }
+            while (warehouseIterator.hasNext()) {
+                Warehouse warehouse = warehouseIterator.next();
+                if (Arrays.binarySearch(candidateIds, warehouse.getId()) < 0) {
+                    return warehouse;
+                }
+            }
+            return null;
         }
 
         @Override
         public boolean hasNext() {
-            return currentWarehouse < warehouses.size();
+            return nextWarehouse != null;
         }
 
         @Override
         public PriorityQueue<Path> getNextPaths() {
-            if (warehouseCount <= currentWarehouse) {
+            if (nextWarehouse == null) {
                 throw new NoSuchElementException("Oasis has no next paths");
             }
-            Warehouse warehouse = warehouses.get(currentWarehouse);
-            PriorityQueue<Path> pathsQueue = oasisPaths.get(warehouse);
+            Warehouse warehouse = nextWarehouse;
+            nextWarehouse = advance();
+            PriorityQueue<Path> pathsQueue = pathCache.get(oasisId, warehouse.getId());
             if (pathsQueue == null) {
                 pathsQueue = findEffectivePaths(oasisId, warehouse.getId());
-                oasisPaths.put(warehouse, pathsQueue);
+                pathCache.put(oasisId, warehouse.getId(), pathsQueue);
             }
-            ++currentWarehouse;
             return pathsQueue;
         }
 
@@ -75,19 +126,145 @@ public class MapGraph {
     }
 
     /**
-     * Graph structure represented by neighbours list
+     * Count of warm-up oases ranges per thread (for better load balancing)
+     */
+    private static final int WARM_UP_CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Estimated route length (in mean edges lengths) from which {@link SearchMode#AUTO} searches from both ends
+     */
+    private static final double LONG_ROUTE_EDGES = 16;
+
+    /**
+     * Initial capacity of the loaded edges buffer
+     */
+    private static final int INITIAL_EDGES_CAPACITY = 1024;
+
+    /**
+     * Graph vertexes
      */
     private final List<GraphEntity> graph;
 
     /**
-     * The shortest path between path --> oasis
+     * X coordinates of the vertexes (the same index as in {@link #graph})
+     */
+    private final double[] x;
+
+    /**
+     * Y coordinates of the vertexes (the same index as in {@link #graph})
      */
-    private final Map<Integer, HashMap<Warehouse, PriorityQueue<Path>>> paths = new HashMap<>();
+    private final double[] y;
 
     /**
-     * List of warehouses
+     * First vertexes of the loaded edges (null after the adjacency is built)
      */
-    private final List<Warehouse> warehouses;
+    private int[] edgeFrom = new int[INITIAL_EDGES_CAPACITY];
+
+    /**
+     * Second vertexes of the loaded edges (null after the adjacency is built)
+     */
+    private int[] edgeTo = new int[INITIAL_EDGES_CAPACITY];
+
+    /**
+     * Loaded edges count
+     */
+    private int edgeCount = 0;
+
+    /**
+     * Adjacency offsets (compressed sparse row) <br>
+     * Neighbours of the vertex {@code v} are {@code targets[offsets[v]..offsets[v + 1]-1]}
+     */
+    private int[] offsets = null;
+
+    /**
+     * Adjacency targets (neighbours of every vertex are unique and sorted by edge length)
+     */
+    private int[] targets = null;
+
+    /**
+     * Length of every adjacency entry (the same index as in {@link #targets})
+     */
+    private double[] edgeLength = null;
+
+    /**
+     * Source vertex of every adjacency entry
+     */
+    private int[] edgeSource = null;
+
+    /**
+     * Adjacency entries sorted by length ascending
+     */
+    private int[] edgesByLength = null;
+
+    /**
+     * Mean edge length (computed with the adjacency)
+     */
+    private double meanEdgeLength = 0;
+
+    /**
+     * Bottleneck index (built with the adjacency)
+     */
+    private BottleneckIndex bottleneckIndex = null;
+
+    /**
+     * Spatial index of warehouses
+     */
+    private final SpatialIndex warehouseIndex;
+
+    /**
+     * Reusable path search contexts (one per thread, created with the first search of the thread)
+     */
+    private final ThreadLocal<SearchContext> contexts;
+
+    /**
+     * Reusable backward search contexts of bidirectional searches (one per thread)
+     */
+    private final ThreadLocal<SearchContext> backwardContexts;
+
+    /**
+     * Point to point search variant (candidate warehouses distances and paths that are not read from the trees)
+     */
+    private volatile SearchMode searchMode = SearchMode.UNIDIRECTIONAL;
+
+    /**
+     * Cache of the shortest paths warehouse --> oasis
+     */
+    private volatile IPathCache pathCache = new UnboundedPathCache();
+
+    /**
+     * Warehouses by priority
+     */
+    private final WarehouseRanking warehouses;
+
+    /**
+     * Warehouses by id
+     */
+    private final List<Warehouse> warehouseById;
+
+    /**
+     * Count of the candidate warehouses evaluated first for every oasis (0 - candidates are not used)
+     */
+    private volatile int candidateCount = 0;
+
+    /**
+     * Candidate warehouses of oases (ids sorted by network distance)
+     */
+    private final Map<Integer, int[]> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * Sorted distinct camel types distance limits (computed on the first request)
+     */
+    private volatile double[] thresholds = null;
+
+    /**
+     * Landmarks of the A* heuristic (null - only Euclidean distance is used)
+     */
+    private volatile LandmarkIndex landmarkIndex = null;
+
+    /**
+     * Contraction hierarchies (the same order as {@link #getThresholds()}, null - hierarchies are not used)
+     */
+    private volatile ContractionHierarchy[] hierarchies = null;
 
     /**
      * Warehouses count
@@ -104,26 +281,25 @@ public class MapGraph {
      *
      * @param points graph vertexes
      * @param camelTypes simulation camel types
-     * @param warehouses list of warehouses
+     * @param warehouses warehouses by priority
      */
-    public MapGraph(List<Point> points, PriorityQueue<CamelType> camelTypes, List<Warehouse> warehouses) {
+    public MapGraph(List<Point> points, PriorityQueue<CamelType> camelTypes, WarehouseRanking warehouses) {
         graph = new ArrayList<>(points.size());
+        x = new double[points.size()];
+        y = new double[points.size()];
         for (Point p : points) {
+            x[graph.size()] = p.x();
+            y[graph.size()] = p.y();
             graph.add(new GraphEntity(p));
         }
         this.camelTypes = camelTypes;
-        this.warehouses = new ArrayList<>(warehouses);
+        this.warehouses = warehouses;
+        this.warehouseById = warehouses.getWarehouses();
         this.warehouseCount = warehouses.size();
-        initPaths();
-    }
-
-    /**
-     * Initializes paths map with warehouses and null paths sets
-     */
-    private void initPaths() {
-        for (int i = warehouseCount; i < graph.size(); i++) {
-            paths.put(i, null);
-        }
+        this.warehouseIndex = new SpatialIndex(points, warehouseCount);
+        int vertexCount = graph.size();
+        this.contexts = ThreadLocal.withInitial(() -> new SearchContext(vertexCount));
+        this.backwardContexts = ThreadLocal.withInitial(() -> new SearchContext(vertexCount));
     }
 
     /**
@@ -137,159 +313,814 @@ public class MapGraph {
     }
 
     /**
-     * Find all effective paths from start point to end point according to camel types
+     * Find all effective paths from warehouse to oasis according to camel types <br>
+     * Paths are read from the shortest path trees of the warehouse (one tree per distinct camel types distance limit)
+     * or searched in the contraction hierarchies if they are used.
+     * If the trees of the warehouse are not stored and do not fit into the path cache, paths are searched point to point.
+     * Camel types that can not reach the oasis (by the bottleneck index) are skipped without any search.
      *
-     * @param start start path point
-     * @param end   end path point
+     * @param oasisId     path destination
+     * @param warehouseId path start
      * @return priority queue with paths
      */
-    private PriorityQueue<Path> findEffectivePaths(int start, int end) {
+    private PriorityQueue<Path> findEffectivePaths(int oasisId, int warehouseId) {
         Set<Path> oasisPaths = new HashSet<>();
+        double bottleneck = getBottleneck(warehouseId, oasisId);
+        double[] thresholds = getThresholds();
+        ContractionHierarchy[] currentHierarchies = hierarchies;
+        ShortestPathTree[] warehouseTrees = null;
+        boolean treesRequested = false;
         for (CamelType camelType : camelTypes) {
-            List<Point> path = findEffectivePath(start, end, camelType);
-            if (path != null) {
-                Path p = new Path(path, start, end);
-                oasisPaths.add(p);
+            double threshold = camelType.getEffectiveDistance();
+            if (bottleneck >= threshold) {
+                continue;
+            }
+            int index = Arrays.binarySearch(thresholds, threshold);
+            int[] vertexes;
+            if (currentHierarchies != null) {
+                vertexes = currentHierarchies[index].findPath(warehouseId, oasisId);
+            } else {
+                if (!treesRequested) {
+                    warehouseTrees = getWarehouseTrees(warehouseId);
+                    treesRequested = true;
+                }
+                if (warehouseTrees != null) {
+                    vertexes = warehouseTrees[index].isReachable(oasisId) ? generatePathVertexes(warehouseTrees[index], oasisId) : null;
+                } else {
+                    vertexes = findPathVertexes(warehouseId, oasisId, threshold);
+                }
+            }
+            if (vertexes != null) {
+                oasisPaths.add(createPath(vertexes, oasisId, warehouseId));
             }
         }
 
         return new PriorityQueue<>(oasisPaths);
     }
 
+    /**
+     * Shortest path trees of the warehouse getter <br>
+     * Trees are kept in the path cache. Missing trees are computed only if the cache can store them,
+     * otherwise the paths of the warehouse are searched point to point. Concurrent requests may compute the trees twice
+     *
+     * @param warehouseId trees root
+     * @return shortest path trees (the same order as {@link #getThresholds()})
+     * or null if they are not stored and do not fit into the path cache
+     */
+    private ShortestPathTree[] getWarehouseTrees(int warehouseId) {
+        IPathCache cache = pathCache;
+        ShortestPathTree[] warehouseTrees = cache.getTrees(warehouseId);
+        if (warehouseTrees == null
+                && cache.canStoreTrees(IPathCache.ENTRY_BYTES + getThresholds().length * ShortestPathTree.estimateWeight(graph.size()))) {
+            warehouseTrees = computeShortestPathTrees(warehouseId, getThresholds());
+            cache.putTrees(warehouseId, warehouseTrees);
+        }
+        return warehouseTrees;
+    }
+
+    /**
+     * Distinct camel types distance limits getter (computed on the first request)
+     *
+     * @return sorted distinct distance limits
+     */
+    private double[] getThresholds() {
+        if (thresholds == null) {
+            thresholds = camelTypes.stream().mapToDouble(CamelType::getEffectiveDistance).sorted().distinct().toArray();
+        }
+        return thresholds;
+    }
 
     /**
-     * Creates new bidirectional edge between two vertexes
+     * Computes shortest path trees for ascending distance limits in one sweep <br>
+     * Edges allowed by a limit are also allowed by every larger one, so distances of the previous tree are valid
+     * upper bounds for the next tree. Only the newly allowed edges are relaxed and the improvements are propagated by Dijkstra algorithm.
      *
-     * @param first  -first vertex
-     * @param second -second vertex
+     * @param root       trees root
+     * @param thresholds ascending edge length limits (only strictly shorter edges are used)
+     * @return shortest path trees (the same order as limits)
      */
-    public void addBidirectionalEdge(int first, int second) {
-        GraphEntity firstVertex = graph.get(first);
-        GraphEntity secondVertex = graph.get(second);
-        firstVertex.addNeighbour(second);
-        secondVertex.addNeighbour(first);
+    private ShortestPathTree[] computeShortestPathTrees(int root, double[] thresholds) {
+        buildAdjacency();
+        IndexedMinHeap heap = getContext().heap;
+        heap.clear();
+        ShortestPathTree[] result = new ShortestPathTree[thresholds.length];
+
+        double[] distance = new double[graph.size()];
+        int[] parent = new int[graph.size()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        distance[root] = 0;
+        heap.push(root, 0);
+
+        for (int k = 0; k < thresholds.length; k++) {
+            double threshold = thresholds[k];
+            if (k > 0) {
+                distance = distance.clone();
+                parent = parent.clone();
+                int end = lowerBound(threshold);
+                for (int i = lowerBound(thresholds[k - 1]); i < end; i++) {
+                    int e = edgesByLength[i];
+                    relax(edgeSource[e], e, distance, parent, heap);
+                }
+            }
+            while (!heap.isEmpty()) {
+                int current = heap.poll();
+                for (int e = offsets[current]; e < offsets[current + 1] && edgeLength[e] < threshold; e++) {
+                    relax(current, e, distance, parent, heap);
+                }
+            }
+            result[k] = new ShortestPathTree(root, threshold, distance, parent);
+        }
+        return result;
     }
 
     /**
-     * Heuristic function to determine point priority in A* algorithm
+     * Helper method <br>
+     * Relaxes the adjacency entry, the improved vertex is added into the heap
      *
-     * @param first  -first point
-     * @param second -second point
-     * @return Manhattan distance between points
+     * @param source   entry source vertex
+     * @param edge     adjacency entry
+     * @param distance distances from the root
+     * @param parent   previous vertexes on the paths
+     * @param heap     open vertexes
      */
-    private double heuristic(Point first, Point second) {
-        if (first == null || second == null) {
-            throw new NullPointerException("two points must not be null");
+    private void relax(int source, int edge, double[] distance, int[] parent, IndexedMinHeap heap) {
+        double g = distance[source] + edgeLength[edge];
+        int next = targets[edge];
+        if (g < distance[next]) {
+            distance[next] = g;
+            parent[next] = source;
+            heap.push(next, g);
         }
-        return Math.abs(first.x() - second.x()) + Math.abs(first.y() - second.y());
     }
 
+    /**
+     * Helper method <br>
+     * Finds the first entry in {@link #edgesByLength} that is not shorter than the length
+     *
+     * @param length length to search
+     * @return index of the first entry with length not shorter than the length
+     */
+    private int lowerBound(double length) {
+        int low = 0;
+        int high = edgesByLength.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (edgeLength[edgesByLength[middle]] < length) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
 
     /**
      * Helper method <br>
-     * Checks if specified camel camelType can pass the distance between two points <br>
-     * Checks does not occur if camel camelType is null
+     * Generates path vertexes from the shortest path tree
      *
-     * @param point1    first point
-     * @param point2    second point
-     * @param camelType camel camelType to check
-     * @return true if this camel camelType can pass the distance between two points, else false
+     * @param tree   shortest path tree
+     * @param vertex path target (must be reachable)
+     * @return path vertexes (tree root -> target)
      */
-    private boolean checkDistance(int point1, int point2, CamelType camelType) {
-        if (camelType == null) {
-            return true;
+    private int[] generatePathVertexes(ShortestPathTree tree, int vertex) {
+        int count = 0;
+        for (int p = vertex; p >= 0; p = tree.parent[p]) {
+            ++count;
+        }
+        int[] vertexes = new int[count];
+        for (int p = vertex; p >= 0; p = tree.parent[p]) {
+            vertexes[--count] = p;
         }
-        Point p1 = graph.get(point1).point;
-        Point p2 = graph.get(point2).point;
-        double distance = Point.getDistance(p1, p2);
-        return distance < camelType.getEffectiveDistance();
+        return vertexes;
     }
 
     /**
      * Helper method <br>
-     * Calculates the shortest paths between previous points and the end, that can be pass by camel camelType
+     * Searches the shortest path point to point (used if the trees of the warehouse are not stored)
      *
+     * @param start     path start
      * @param end       path target
-     * @param previous  previous points in the path
-     * @param queue     points queue to check
-     * @param camelType camel camelType to check the path. If camelType is null, then check will not occur
+     * @param threshold edge length limit (only strictly shorter edges are used)
+     * @return path vertexes (start -> end) or null if there is no path
+     */
+    private int[] findPathVertexes(int start, int end, double threshold) {
+        SearchContext context = getContext();
+        int meet = end;
+        SearchContext backward = null;
+        if (isBidirectional(start, end, searchMode)) {
+            backward = backwardContexts.get();
+            meet = calculatePathBidirectional(start, end, context, backward, threshold);
+            if (meet < 0) {
+                return null;
+            }
+        } else if (!calculatePath(start, end, context, threshold)) {
+            return null;
+        }
+        int count = 0;
+        for (int p = meet; p >= 0; p = context.parent[p]) {
+            ++count;
+        }
+        int forwardCount = count;
+        if (backward != null) {
+            for (int p = backward.parent[meet]; p >= 0; p = backward.parent[p]) {
+                ++count;
+            }
+        }
+        int[] vertexes = new int[count];
+        int i = forwardCount;
+        for (int p = meet; p >= 0; p = context.parent[p]) {
+            vertexes[--i] = p;
+        }
+        if (backward != null) {
+            i = forwardCount;
+            for (int p = backward.parent[meet]; p >= 0; p = backward.parent[p]) {
+                vertexes[i++] = p;
+            }
+        }
+        return vertexes;
+    }
+
+    /**
+     * Helper method <br>
+     * Creates the path with segment lengths computed from the vertexes coordinates
+     * (the path hash code is the same as the hash code of its points list,
+     * drink stops are counted for all camel types distance limits)
+     *
+     * @param vertexes    path vertexes (warehouse -> oasis)
+     * @param oasisId     path destination
+     * @param warehouseId path start
+     * @return created path
      */
+    private Path createPath(int[] vertexes, int oasisId, int warehouseId) {
+        double[] segmentLength = new double[Math.max(vertexes.length - 1, 0)];
+        int hash = 1;
+        for (int i = 0; i < vertexes.length; i++) {
+            hash = 31 * hash + graph.get(vertexes[i]).point.hashCode();
+            if (i < segmentLength.length) {
+                segmentLength[i] = getDistance(vertexes[i], vertexes[i + 1]);
+            }
+        }
+        return new Path(vertexes, segmentLength, hash, getThresholds(), oasisId, warehouseId);
+    }
 
-    private void calculatePath(int end, Map<Integer, Integer> previous, PriorityQueue<AStartEntity> queue, CamelType camelType) {
-        while (!queue.isEmpty()) {
-            int current = queue.poll().pointId;
+    /**
+     * Helper method <br>
+     * Computes Euclidean distance between two vertexes (the same result as {@link Point#getDistance(Point, Point)})
+     *
+     * @param first  first vertex
+     * @param second second vertex
+     * @return distance between vertexes
+     */
+    private double getDistance(int first, int second) {
+        double dx = x[first] - x[second];
+        double dy = y[first] - y[second];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
 
-            if (current == end) {
-                break;
+    /**
+     * Search context getter (context is created with the first search of the thread)
+     *
+     * @return reusable search context of the current thread
+     */
+    private SearchContext getContext() {
+        return contexts.get();
+    }
+
+    /**
+     * Computes paths between all warehouses and oases in parallel <br>
+     * Shortest path trees of warehouses are computed first (only those that fit into the path cache), then paths of oases ranges are read from them.
+     * Computed paths are stored in the same cache as the lazily computed ones.
+     *
+     * @param pool pool to run the tasks
+     * @return count of cached warehouse --> oasis paths queues
+     */
+    public long warmUp(ForkJoinPool pool) {
+        buildAdjacency();
+        getThresholds();
+        List<Warehouse> warehouseList = warehouseById;
+
+        List<Callable<Void>> tasks = new ArrayList<>(warehouseList.size());
+        if (hierarchies == null) {
+            for (Warehouse warehouse : warehouseList) {
+                tasks.add(() -> {
+                    getWarehouseTrees(warehouse.getId());
+                    return null;
+                });
             }
+            invokeAll(pool, tasks);
+        }
 
-            Set<Integer> neighbours = graph.get(current).neighbours;
-            if (neighbours != null) {
-                for (int next : neighbours) {
-                    if (!previous.containsKey(next)) {
-                        if (checkDistance(current, next, camelType)) {
-                            double priority = heuristic(graph.get(end).point, graph.get(next).point);
-                            queue.add(new AStartEntity(next, priority));
-                            previous.put(next, current);
+        int oasesCount = graph.size() - warehouseCount;
+        int chunk = Math.max(1, oasesCount / (pool.getParallelism() * WARM_UP_CHUNKS_PER_THREAD));
+        tasks = new ArrayList<>();
+        for (int from = warehouseCount; from < graph.size(); from += chunk) {
+            int start = from;
+            int end = Math.min(graph.size(), from + chunk);
+            tasks.add(() -> {
+                for (int oasisId = start; oasisId < end; oasisId++) {
+                    for (Warehouse warehouse : warehouseList) {
+                        if (!pathCache.contains(oasisId, warehouse.getId())) {
+                            pathCache.put(oasisId, warehouse.getId(), findEffectivePaths(oasisId, warehouse.getId()));
                         }
                     }
                 }
+                return null;
+            });
+        }
+        invokeAll(pool, tasks);
+        return pathCache.size();
+    }
+
+    /**
+     * Helper method <br>
+     * Runs the tasks in the pool and waits for them
+     *
+     * @param pool  pool to run the tasks
+     * @param tasks tasks to run
+     */
+    private static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Switches path searches to contraction hierarchies (one hierarchy per distinct camel types distance limit) <br>
+     * Hierarchies are read from the file if it contains hierarchies of the same graph,
+     * otherwise they are built and written into the file.
+     * Built hierarchies are used even if they can not be written.
+     *
+     * @param file hierarchies file
+     * @return true if the hierarchies have been read from the file, false if they have been built
+     * @throws IOException if the built hierarchies can not be written into the file
+     */
+    public boolean useContractionHierarchies(File file) throws IOException {
+        buildAdjacency();
+        double[] limits = getThresholds();
+        long fingerprint = getFingerprint();
+        ContractionHierarchy[] result = ContractionHierarchy.read(file, fingerprint, limits);
+        boolean loaded = result != null;
+        if (!loaded) {
+            result = new ContractionHierarchy[limits.length];
+            for (int k = 0; k < limits.length; k++) {
+                result[k] = ContractionHierarchy.build(offsets, targets, edgeLength, limits[k]);
             }
+            hierarchies = result;
+            ContractionHierarchy.write(file, fingerprint, result);
+            return false;
+        }
+        hierarchies = result;
+        return true;
+    }
 
+    /**
+     * Switches A* heuristic to landmarks (ALT) <br>
+     * Landmarks are selected in the connected component of the first warehouse.
+     * Only the point to point searches use the heuristic (candidate warehouses distances
+     * and paths of warehouses whose trees do not fit into the path cache)
+     *
+     * @param count count of landmarks (0 - landmarks are not used)
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public void useLandmarks(int count) throws IllegalArgumentException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Landmarks count must not be negative");
         }
+        buildAdjacency();
+        landmarkIndex = count == 0 || graph.isEmpty() ? null : new LandmarkIndex(offsets, targets, edgeLength, count, 0);
+    }
+
+    /**
+     * Point to point search variant setter <br>
+     * The variant is used only by the point to point searches (candidate warehouses distances
+     * and paths of warehouses whose trees do not fit into the path cache)
+     *
+     * @param searchMode point to point search variant
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
     }
 
     /**
      * Helper method <br>
-     * Generates a list of points from the path map
-     *
-     * @param end      path target
-     * @param previous path map
-     * @return list of points represents the path
-     */
-    private List<Point> generatePathPoints(int end, Map<Integer, Integer> previous) {
-        List<Point> path = new LinkedList<>();
-        if (previous.containsKey(end)) {
-            Integer p = end;
-            path.add(graph.get(p).point);
-            while ((p = previous.get(p)) != null) {
-                path.add(graph.get(p).point);
+     * Computes the fingerprint of the adjacency (detects stale persisted data)
+     *
+     * @return adjacency fingerprint
+     */
+    private long getFingerprint() {
+        long hash = offsets.length;
+        for (int offset : offsets) {
+            hash = hash * 0x9E3779B97F4A7C15L + offset;
+        }
+        for (int e = 0; e < targets.length; e++) {
+            hash = hash * 0x9E3779B97F4A7C15L + targets[e];
+            hash = hash * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(edgeLength[e]);
+        }
+        return hash;
+    }
+
+    /**
+     * Candidate warehouses count setter <br>
+     * Paths to the nearest (by network distance) warehouses of the oasis are evaluated first,
+     * the other warehouses are evaluated only if none of the candidates fits
+     *
+     * @param candidateCount count of the candidate warehouses (0 - all warehouses are evaluated by priority)
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public void setCandidateCount(int candidateCount) throws IllegalArgumentException {
+        if (candidateCount < 0) {
+            throw new IllegalArgumentException("Candidates count must not be negative");
+        }
+        this.candidateCount = candidateCount;
+        candidates.clear();
+    }
+
+    /**
+     * Candidate warehouses of the oasis getter (computed on the first request)
+     *
+     * @param oasisId oasis id
+     * @return ids of the candidate warehouses sorted by network distance
+     */
+    public int[] getCandidates(int oasisId) {
+        int[] result = candidates.get(oasisId);
+        if (result == null) {
+            result = computeCandidates(oasisId, candidateCount);
+            candidates.put(oasisId, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the nearest warehouses of the oasis by network distance (using the least restrictive camel type limit) <br>
+     * Warehouses are evaluated in order of Euclidean distance (taken from the warehouses spatial index in growing batches),
+     * which never exceeds the network distance, so the search stops when the next Euclidean distance
+     * is not shorter than the worst found network distance.
+     * Warehouses that can not be reached at all are skipped by the bottleneck index without any search.
+     *
+     * @param oasisId oasis id
+     * @param count   count of the candidates
+     * @return ids of the nearest reachable warehouses sorted by network distance (at most count)
+     */
+    private int[] computeCandidates(int oasisId, int count) {
+        double[] thresholds = getThresholds();
+        double threshold = thresholds.length == 0 ? Double.POSITIVE_INFINITY : thresholds[thresholds.length - 1];
+        if (count == 0 || warehouseCount == 0) {
+            return new int[0];
+        }
+        int[] ids = new int[count];
+        double[] distances = new double[count];
+        int found = 0;
+
+        int[] order = warehouseIndex.findNearest(x[oasisId], y[oasisId], 2 * count);
+        for (int position = 0; ; position++) {
+            if (position == order.length) {
+                if (order.length == warehouseCount) {
+                    break;
+                }
+                order = warehouseIndex.findNearest(x[oasisId], y[oasisId], 2 * order.length);
             }
-        } else {
-            return null;
+            int nearest = order[position];
+            if (found == count && distances[count - 1] <= getDistance(oasisId, nearest)) {
+                break;
+            }
+            if (getBottleneck(oasisId, nearest) >= threshold) {
+                continue;
+            }
+            double distance = findDistance(oasisId, nearest, threshold);
+            found = insertCandidate(ids, distances, found, nearest, distance);
         }
+        return Arrays.copyOf(ids, found);
+    }
 
-        return path;
+    /**
+     * Helper method <br>
+     * Inserts the warehouse into the sorted candidates (the worst candidate is dropped if the candidates are full)
+     *
+     * @param ids       candidates ids
+     * @param distances candidates distances (ascending)
+     * @param found     count of the candidates
+     * @param id        warehouse id
+     * @param distance  warehouse network distance
+     * @return new count of the candidates
+     */
+    private static int insertCandidate(int[] ids, double[] distances, int found, int id, double distance) {
+        int i = Math.min(found, ids.length - 1);
+        if (found == ids.length && distances[i] <= distance) {
+            return found;
+        }
+        while (i > 0 && distances[i - 1] > distance) {
+            ids[i] = ids[i - 1];
+            distances[i] = distances[i - 1];
+            --i;
+        }
+        ids[i] = id;
+        distances[i] = distance;
+        return Math.min(found + 1, ids.length);
     }
 
     /**
-     * Searches the shortest path between two points using A* algorithm <br>
-     * Checks if the specified camel camelType can pass this path
+     * Path cache getter
      *
-     * @param start     start point
-     * @param end       end point
-     * @param camelType camel camelType to check
-     * @return Linked Set of points that encapsulates path (end -> start). If there is no path, null.
+     * @return cache of warehouse --> oasis paths queues
      */
-    public List<Point> findEffectivePath(int start, int end, CamelType camelType) {
-        PriorityQueue<AStartEntity> queue = new PriorityQueue<>();
-        queue.add(new AStartEntity(start, 0));
+    public IPathCache getPathCache() {
+        return pathCache;
+    }
 
-        Map<Integer, Integer> previous = new HashMap<>();
-        previous.put(start, null);
+    /**
+     * Path cache setter (already cached paths are dropped)
+     *
+     * @param pathCache cache of warehouse --> oasis paths queues
+     */
+    public void setPathCache(IPathCache pathCache) {
+        this.pathCache = Objects.requireNonNull(pathCache);
+    }
 
-        calculatePath(end, previous, queue, camelType);
+    /**
+     * Creates new bidirectional edge between two vertexes <br>
+     * Edges are only stored until {@link #buildAdjacency()} is called
+     *
+     * @param first  -first vertex
+     * @param second -second vertex
+     * @throws IndexOutOfBoundsException if the vertex does not exist
+     * @throws IllegalStateException if the adjacency has already been built
+     */
+    public void addBidirectionalEdge(int first, int second) throws IndexOutOfBoundsException, IllegalStateException {
+        if (offsets != null) {
+            throw new IllegalStateException("Adjacency has already been built");
+        }
+        Objects.checkIndex(first, graph.size());
+        Objects.checkIndex(second, graph.size());
+        if (edgeCount == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+        }
+        edgeFrom[edgeCount] = first;
+        edgeTo[edgeCount] = second;
+        ++edgeCount;
+    }
 
-        return generatePathPoints(end, previous);
+    /**
+     * Builds compressed sparse row adjacency from the loaded edges <br>
+     * Duplicate edges are merged, edges lengths are precomputed and neighbours are sorted by them.
+     * It must be called after all edges are loaded (it is called automatically by the first path search).
+     */
+    public void buildAdjacency() {
+        if (offsets != null) {
+            return;
+        }
+        setAdjacency(Adjacency.build(x, y, edgeFrom, edgeTo, edgeCount));
     }
 
     /**
-     * Graph structure getter
+     * Sets the adjacency built before (for example loaded from the scenario snapshot) instead of loading edges
      *
-     * @return graph structure
+     * @param adjacency adjacency of the graph
+     * @throws IllegalStateException    if the adjacency has already been built
+     * @throws IllegalArgumentException if the adjacency does not match the graph vertexes
+     */
+    public void setAdjacency(Adjacency adjacency) throws IllegalStateException, IllegalArgumentException {
+        if (offsets != null) {
+            throw new IllegalStateException("Adjacency has already been built");
+        }
+        if (adjacency.offsets.length != graph.size() + 1) {
+            throw new IllegalArgumentException("Adjacency does not match the graph vertexes");
+        }
+        edgeFrom = null;
+        edgeTo = null;
+        edgeCount = 0;
+        targets = adjacency.targets;
+        edgeLength = adjacency.edgeLength;
+        edgeSource = adjacency.edgeSource;
+        edgesByLength = adjacency.edgesByLength;
+        meanEdgeLength = adjacency.meanEdgeLength;
+        bottleneckIndex = new BottleneckIndex(graph.size(), edgesByLength, edgeSource, targets, edgeLength);
+        offsets = adjacency.offsets;
+    }
+
+    /**
+     * Bottleneck getter (builds the adjacency if needed)
+     *
+     * @param first  first vertex
+     * @param second second vertex
+     * @return minimal possible longest edge on a path between vertexes
+     * (0 for the same vertex, {@link Double#POSITIVE_INFINITY} if there is no path)
+     */
+    public double getBottleneck(int first, int second) {
+        buildAdjacency();
+        return bottleneckIndex.getBottleneck(first, second);
+    }
+
+    /**
+     * Heuristic function to determine point priority in A* algorithm
+     *
+     * @param first  -first vertex
+     * @param second -second vertex
+     * @return lower bound of the road distance between vertexes
+     * (the larger of Euclidean distance and landmarks bound if landmarks are used)
+     */
+    private double heuristic(int first, int second) {
+        double euclidean = getDistance(first, second);
+        LandmarkIndex landmarks = landmarkIndex;
+        return landmarks == null ? euclidean : Math.max(euclidean, landmarks.getLowerBound(first, second));
+    }
+
+
+    /**
+     * Helper method <br>
+     * Calculates the shortest paths from the start until the end is reached, using only edges shorter than the threshold
+     *
+     * @param start     path start
+     * @param end       path target
+     * @param context   search context
+     * @param threshold edge length limit
+     * @return true if the end has been reached, else false
+     */
+    private boolean calculatePath(int start, int end, SearchContext context, double threshold) {
+        buildAdjacency();
+        context.begin();
+        context.visit(start, 0, -1);
+        context.heap.push(start, heuristic(start, end));
+        IndexedMinHeap heap = context.heap;
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+
+            if (current == end) {
+                return true;
+            }
+
+            double distance = context.g[current];
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                if (edgeLength[e] >= threshold) {
+                    break; // neighbours are sorted by edge length
+                }
+                int next = targets[e];
+                double g = distance + edgeLength[e];
+                if (context.isVisited(next)) {
+                    if (g >= context.g[next] || !heap.contains(next)) {
+                        continue;
+                    }
+                }
+                context.visit(next, g, current);
+                heap.push(next, g + heuristic(next, end));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method <br>
+     * Computes the potential of the vertex for bidirectional A* search <br>
+     * Average of the forward and the backward heuristics keeps both searches consistent,
+     * so the search can stop as soon as the sum of both smallest keys reaches the best found distance.
+     *
+     * @param vertex vertex to compute the potential of
+     * @param start  search start
+     * @param end    search target
+     * @return forward potential of the vertex (backward potential is its negation)
+     */
+    private double potential(int vertex, int start, int end) {
+        return (heuristic(vertex, end) - heuristic(vertex, start)) / 2;
+    }
+
+    /**
+     * Helper method <br>
+     * Calculates the shortest path by A* searches from both ends, using only edges shorter than the threshold
+     *
+     * @param start     path start
+     * @param end       path target
+     * @param forward   search context of the search from the start
+     * @param backward  search context of the search from the end
+     * @param threshold edge length limit
+     * @return vertex where the searches meet on the shortest path or -1 if there is no path
+     */
+    private int calculatePathBidirectional(int start, int end, SearchContext forward, SearchContext backward, double threshold) {
+        buildAdjacency();
+        forward.begin();
+        backward.begin();
+        forward.visit(start, 0, -1);
+        forward.heap.push(start, potential(start, start, end));
+        backward.visit(end, 0, -1);
+        backward.heap.push(end, -potential(end, start, end));
+        double best = start == end ? 0 : Double.POSITIVE_INFINITY;
+        int meet = start == end ? start : -1;
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()
+                && forward.heap.peekKey() + backward.heap.peekKey() < best) {
+            boolean isForward = forward.heap.peekKey() <= backward.heap.peekKey();
+            SearchContext current = isForward ? forward : backward;
+            SearchContext other = isForward ? backward : forward;
+            int vertex = current.heap.poll();
+            double distance = current.g[vertex];
+            for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+                if (edgeLength[e] >= threshold) {
+                    break; // neighbours are sorted by edge length
+                }
+                int next = targets[e];
+                double g = distance + edgeLength[e];
+                if (current.isVisited(next) && g >= current.g[next]) {
+                    continue;
+                }
+                current.visit(next, g, vertex);
+                double p = potential(next, start, end);
+                current.heap.push(next, g + (isForward ? p : -p));
+                if (other.isVisited(next) && g + other.g[next] < best) {
+                    best = g + other.g[next];
+                    meet = next;
+                }
+            }
+        }
+        return meet;
+    }
+
+    /**
+     * Helper method <br>
+     * Decides if the search should run from both ends
+     *
+     * @param start path start
+     * @param end   path target
+     * @param mode  search variant
+     * @return true if the bidirectional search should be used, else false
+     */
+    private boolean isBidirectional(int start, int end, SearchMode mode) {
+        if (mode == SearchMode.AUTO) {
+            buildAdjacency();
+            return heuristic(start, end) >= LONG_ROUTE_EDGES * meanEdgeLength;
+        }
+        return mode == SearchMode.BIDIRECTIONAL;
+    }
+
+    /**
+     * Helper method <br>
+     * Searches the shortest path distance between two points using the current search variant
+     * (or the contraction hierarchy of the same limit if hierarchies are used)
+     *
+     * @param start     start point
+     * @param end       end point
+     * @param threshold edge length limit (only strictly shorter edges are used)
+     * @return distance of the shortest path or {@link Double#POSITIVE_INFINITY} if there is no path
+     */
+    private double findDistance(int start, int end, double threshold) {
+        ContractionHierarchy[] currentHierarchies = hierarchies;
+        if (currentHierarchies != null) {
+            int index = Arrays.binarySearch(getThresholds(), threshold);
+            if (index >= 0) {
+                return currentHierarchies[index].findDistance(start, end);
+            }
+        }
+        SearchContext context = getContext();
+        if (isBidirectional(start, end, searchMode)) {
+            SearchContext backward = backwardContexts.get();
+            int meet = calculatePathBidirectional(start, end, context, backward, threshold);
+            return meet < 0 ? Double.POSITIVE_INFINITY : context.g[meet] + backward.g[meet];
+        }
+        if (!calculatePath(start, end, context, threshold)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return context.g[end];
+    }
+
+    /**
+     * Graph vertexes getter
+     *
+     * @return graph vertexes
      */
     public List<GraphEntity> getGraph() {
         return graph;
     }
 
+    /**
+     * Adjacency offsets getter (builds the adjacency if needed)
+     *
+     * @return adjacency offsets (neighbours of the vertex {@code v} are {@code targets[offsets[v]..offsets[v + 1]-1]})
+     */
+    public int[] getOffsets() {
+        buildAdjacency();
+        return offsets;
+    }
+
+    /**
+     * Adjacency targets getter (builds the adjacency if needed)
+     *
+     * @return adjacency targets
+     */
+    public int[] getTargets() {
+        buildAdjacency();
+        return targets;
+    }
+
+    /**
+     * Adjacency entries lengths getter (builds the adjacency if needed)
+     *
+     * @return lengths of adjacency entries
+     */
+    public double[] getEdgeLengths() {
+        buildAdjacency();
+        return edgeLength;
+    }
+
 }
\ No newline at end of file
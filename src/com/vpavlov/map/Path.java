@@ -1,5 +1,7 @@
 package com.vpavlov.map;
 
+import com.vpavlov.simulation.model.CamelType;
+
 import java.util.*;
 
 /**
@@ -10,9 +12,24 @@ import java.util.*;
 public class Path implements Comparable<Path> {
 
     /**
-     * Path from warehouse to oasis
+     * Estimated memory of the path without vertexes (path object and arrays headers)
+     */
+    private static final long PATH_BYTES = 80;
+
+    /**
+     * Estimated memory of one path vertex (vertex id and segment length)
      */
-    private final List<Point> points;
+    private static final long VERTEX_BYTES = Integer.BYTES + Double.BYTES;
+
+    /**
+     * Path vertexes ids (in order warehouse --> oasis)
+     */
+    private final int[] vertexes;
+
+    /**
+     * Lengths of the path segments ({@code segmentLength[i]} is the distance between vertexes {@code i} and {@code i + 1})
+     */
+    private final double[] segmentLength;
 
     /**
      * Path distance
@@ -22,7 +39,22 @@ public class Path implements Comparable<Path> {
     /**
      * Maximal transition distance between two points in the path
      */
-    private double maxTransitionDistance = -1;
+    private final double maxTransitionDistance;
+
+    /**
+     * Precomputed hash code (the same as the hash code of the points list)
+     */
+    private final int hash;
+
+    /**
+     * Sorted distances of the drink profile (shared by all paths of the graph)
+     */
+    private final double[] drinkDistances;
+
+    /**
+     * Drink stops counts of the drink profile distances (-1 if the distance is shorter than the longest segment)
+     */
+    private final int[] drinkCounts;
 
     /**
      * Oasis id (destination point)
@@ -37,34 +69,32 @@ public class Path implements Comparable<Path> {
     /**
      * Constructor
      *
-     * @param points      - list of path points (in order warehouse --> oasis)
-     * @param oasisId     - id of oasis (destination)
-     * @param warehouseId - id of warehouse (starting point)
+     * @param vertexes      - path vertexes ids (in order warehouse --> oasis)
+     * @param segmentLength - lengths of the path segments (one less than vertexes)
+     * @param hash          - hash code of the path points list
+     * @param distances     - sorted camel types distances to count the drink stops for (the array is shared, not copied)
+     * @param oasisId       - id of oasis (destination)
+     * @param warehouseId   - id of warehouse (starting point)
      */
-    public Path(List<Point> points, int oasisId, int warehouseId) {
-        this.points = new ArrayList<>(points);
+    public Path(int[] vertexes, double[] segmentLength, int hash, double[] distances, int oasisId, int warehouseId) {
         this.oasisId = oasisId;
         this.warehouseId = warehouseId;
-        this.distance = calculateDistance();
-    }
-
-    /**
-     * Calculate path distance
-     *
-     * @return path distance
-     */
-    private double calculateDistance() {
-        double distance = 0;
-        double transition;
-        for (int i = 0; i < points.size() - 1; ++i) {
-            Point p1 = points.get(i);
-            Point p2 = points.get(i + 1);
-            transition = Point.getDistance(p1, p2);
-            distance += transition;
-            maxTransitionDistance = Math.max(maxTransitionDistance, transition);
+        this.vertexes = vertexes;
+        this.segmentLength = segmentLength;
+        double sum = 0;
+        double max = -1;
+        for (double transition : segmentLength) {
+            sum += transition;
+            max = Math.max(max, transition);
+        }
+        this.distance = sum;
+        this.maxTransitionDistance = max;
+        this.hash = hash;
+        this.drinkDistances = distances;
+        this.drinkCounts = new int[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            drinkCounts[i] = distances[i] < max ? -1 : countDrinks(distances[i]);
         }
-
-        return distance;
     }
 
     /**
@@ -95,13 +125,74 @@ public class Path implements Comparable<Path> {
     }
 
     /**
-     * Path points getter (from warehouse to oasis)<br>
-     * Shallow copying
+     * Path vertexes count getter
      *
-     * @return shallow copy of path points
+     * @return count of vertexes (including warehouse and oasis)
      */
-    public List<Point> getPoints() {
-        return points;
+    public int getVertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Path vertex getter
+     *
+     * @param index vertex index in the path (0 - warehouse)
+     * @return graph vertex id (the same as the point id)
+     */
+    public int getVertex(int index) {
+        return vertexes[index];
+    }
+
+    /**
+     * Path segment length getter
+     *
+     * @param index segment index (the segment starts at the vertex with the same index)
+     * @return distance between vertexes {@code index} and {@code index + 1}
+     */
+    public double getSegmentLength(int index) {
+        return segmentLength[index];
+    }
+
+    /**
+     * Drink stops count getter <br>
+     * Counts of the camel types distances are computed with the path, other distances are counted on request
+     *
+     * @param effectiveDistance distance the camel can pass without drinking (must not be less than {@link #getMaxTransitionDistance()})
+     * @return count of drink stops on the path (the camel starts with full stamina)
+     */
+    public int getDrinkCount(double effectiveDistance) {
+        int index = Arrays.binarySearch(drinkDistances, effectiveDistance);
+        return index >= 0 ? drinkCounts[index] : countDrinks(effectiveDistance);
+    }
+
+    /**
+     * Drink overhead getter
+     *
+     * @param camelType camel type passing the path (its distance must not be less than {@link #getMaxTransitionDistance()})
+     * @return time the camel type spends drinking on the path
+     */
+    public double getDrinkOverhead(CamelType camelType) {
+        return getDrinkCount(camelType.getEffectiveDistance()) * camelType.getDrinkTime();
+    }
+
+    /**
+     * Helper method <br>
+     * Counts drink stops on the path (camel drinks before a segment longer than its remaining stamina)
+     *
+     * @param effectiveDistance distance the camel can pass without drinking
+     * @return count of drink stops
+     */
+    private int countDrinks(double effectiveDistance) {
+        double stamina = effectiveDistance;
+        int count = 0;
+        for (double transition : segmentLength) {
+            if (stamina < transition) {
+                ++count;
+                stamina = effectiveDistance;
+            }
+            stamina -= transition;
+        }
+        return count;
     }
 
     /**
@@ -113,9 +204,18 @@ public class Path implements Comparable<Path> {
         return distance;
     }
 
+    /**
+     * Estimates memory used by the path
+     *
+     * @return estimated memory in bytes
+     */
+    public long estimateWeight() {
+        return PATH_BYTES + vertexes.length * VERTEX_BYTES + drinkCounts.length * Integer.BYTES;
+    }
+
     @Override
     public String toString() {
-        return String.format("Path [%f  |  %f]: (%d --> %d) %s", distance, maxTransitionDistance, warehouseId + 1, oasisId + 1, points);
+        return String.format("Path [%f  |  %f]: (%d --> %d) %s", distance, maxTransitionDistance, warehouseId + 1, oasisId + 1, Arrays.toString(vertexes));
         //return "Path []: " + (warehouse_id + 1) + " --> " + (oasis_id + 1) + " " + points;
     }
 
@@ -127,13 +227,13 @@ public class Path implements Comparable<Path> {
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Path) {
-            return this.points.equals(((Path) obj).points) && this.oasisId == ((Path) obj).oasisId && this.warehouseId == ((Path) obj).warehouseId;
+            return this.hash == ((Path) obj).hash && Arrays.equals(this.vertexes, ((Path) obj).vertexes) && this.oasisId == ((Path) obj).oasisId && this.warehouseId == ((Path) obj).warehouseId;
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return points.hashCode();
+        return hash;
     }
 }
@@ -0,0 +1,84 @@
+package com.vpavlov.map;
+
+import java.util.Arrays;
+
+/**
+ * Reusable state of the path search <br>
+ * Arrays are allocated once per graph, the visited vertexes are marked by the search generation,
+ * so starting a new search does not need to clear them.
+ *
+ * @author vpavlov
+ */
+public class SearchContext {
+
+    /**
+     * Distance from the search start to every visited vertex
+     */
+    final double[] g;
+
+    /**
+     * Previous vertex on the path from the search start (-1 for the start)
+     */
+    final int[] parent;
+
+    /**
+     * Generation of the search that visited the vertex
+     */
+    private final int[] visited;
+
+    /**
+     * Open vertexes
+     */
+    final IndexedMinHeap heap;
+
+    /**
+     * Current search generation
+     */
+    private int generation = 0;
+
+    /**
+     * Constructor
+     *
+     * @param vertexCount count of graph vertexes
+     */
+    public SearchContext(int vertexCount) {
+        g = new double[vertexCount];
+        parent = new int[vertexCount];
+        visited = new int[vertexCount];
+        heap = new IndexedMinHeap(vertexCount);
+    }
+
+    /**
+     * Starts a new search (previous visited marks become invalid)
+     */
+    void begin() {
+        heap.clear();
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Checks if the vertex has been visited by the current search
+     *
+     * @param vertex vertex id
+     * @return true if the vertex has been visited, else false
+     */
+    boolean isVisited(int vertex) {
+        return visited[vertex] == generation;
+    }
+
+    /**
+     * Marks the vertex as visited by the current search
+     *
+     * @param vertex   vertex id
+     * @param distance distance from the search start
+     * @param previous previous vertex on the path (-1 for the start)
+     */
+    void visit(int vertex, double distance, int previous) {
+        visited[vertex] = generation;
+        g[vertex] = distance;
+        parent[vertex] = previous;
+    }
+}
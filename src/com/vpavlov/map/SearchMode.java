@@ -0,0 +1,25 @@
+package com.vpavlov.map;
+
+/**
+ * Point to point path search variant <br>
+ * Used by the candidate warehouses distances and by the paths of warehouses whose trees do not fit into the path cache
+ *
+ * @author vpavlov
+ */
+public enum SearchMode {
+    /**
+     * A* search from the start to the end
+     */
+    UNIDIRECTIONAL,
+
+    /**
+     * A* searches from both ends at once (better for long routes)
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Bidirectional search for long routes (by the estimated distance), unidirectional search otherwise
+     */
+    AUTO
+
+}
@@ -0,0 +1,121 @@
+package com.vpavlov.map;
+
+/**
+ * Shortest paths from one root vertex to all vertexes reachable by edges shorter than the threshold
+ *
+ * @author vpavlov
+ */
+public class ShortestPathTree {
+
+    /**
+     * Estimated memory of the tree without vertexes (tree object and arrays headers)
+     */
+    private static final long TREE_BYTES = 64;
+
+    /**
+     * Estimated memory of one tree vertex (distance and parent)
+     */
+    private static final long VERTEX_BYTES = Double.BYTES + Integer.BYTES;
+
+    /**
+     * Tree root (warehouse id)
+     */
+    private final int root;
+
+    /**
+     * Edge length limit (only edges strictly shorter are used)
+     */
+    private final double threshold;
+
+    /**
+     * Distance from the root to every vertex ({@link Double#POSITIVE_INFINITY} if the vertex is unreachable)
+     */
+    final double[] distance;
+
+    /**
+     * Previous vertex on the path from the root (-1 for the root and unreachable vertexes)
+     */
+    final int[] parent;
+
+    /**
+     * Constructor
+     *
+     * @param root      tree root
+     * @param threshold edge length limit
+     * @param distance  distances from the root
+     * @param parent    previous vertexes on the paths from the root
+     */
+    ShortestPathTree(int root, double threshold, double[] distance, int[] parent) {
+        this.root = root;
+        this.threshold = threshold;
+        this.distance = distance;
+        this.parent = parent;
+    }
+
+    /**
+     * Tree root getter
+     *
+     * @return tree root
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Edge length limit getter
+     *
+     * @return edge length limit
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Checks if the vertex is reachable from the root
+     *
+     * @param vertex vertex id
+     * @return true if the vertex is reachable, else false
+     */
+    public boolean isReachable(int vertex) {
+        return distance[vertex] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Distance getter
+     *
+     * @param vertex vertex id
+     * @return distance from the root to the vertex ({@link Double#POSITIVE_INFINITY} if the vertex is unreachable)
+     */
+    public double getDistance(int vertex) {
+        return distance[vertex];
+    }
+
+    /**
+     * Parent getter
+     *
+     * @param vertex vertex id
+     * @return previous vertex on the path from the root (-1 for the root and unreachable vertexes)
+     */
+    public int getParent(int vertex) {
+        return parent[vertex];
+    }
+
+    /**
+     * Estimates memory used by the tree
+     *
+     * @return estimated memory in bytes
+     */
+    public long estimateWeight() {
+        return estimateWeight(distance.length);
+    }
+
+    /**
+     * Estimates memory used by a tree of the graph before the tree is computed
+     *
+     * @param vertexCount count of the graph vertexes
+     * @return estimated memory in bytes
+     */
+    public static long estimateWeight(int vertexCount) {
+        return TREE_BYTES + vertexCount * VERTEX_BYTES;
+    }
+}
@@ -0,0 +1,302 @@
+package com.vpavlov.map;
+
+import java.util.List;
+
+/**
+ * Static 2-d tree over the map points <br>
+ * The tree is implicit: points are stored in primitive arrays ordered so that the median of every range
+ * is its node and the lower (upper) half of the range is its left (right) subtree.
+ * Split axis alternates by depth (X at the root). The tree is built once in O(n log n) and can not be changed. <br>
+ * Supports k-nearest queries, results are ordered by distance and then by id (deterministic).
+ *
+ * @author vpavlov
+ */
+public class SpatialIndex {
+
+    /**
+     * X-coordinates in the tree order
+     */
+    private final double[] x;
+
+    /**
+     * Y-coordinates in the tree order
+     */
+    private final double[] y;
+
+    /**
+     * Point ids in the tree order
+     */
+    private final int[] ids;
+
+    /**
+     * Bounded max-heap of the nearest points found by the query (the farthest point is on the top)
+     */
+    private static class NearestHeap {
+
+        /**
+         * Squared distances of the points
+         */
+        final double[] distance;
+
+        /**
+         * Ids of the points
+         */
+        final int[] id;
+
+        /**
+         * Points count
+         */
+        int size = 0;
+
+        /**
+         * Constructor
+         *
+         * @param capacity maximal points count
+         */
+        NearestHeap(int capacity) {
+            distance = new double[capacity];
+            id = new int[capacity];
+        }
+
+        /**
+         * Checks if the heap is full
+         *
+         * @return true if the heap contains maximal points count, else false
+         */
+        boolean isFull() {
+            return size == id.length;
+        }
+
+        /**
+         * Helper method <br>
+         * Compares two points by distance and then by id
+         *
+         * @param d1  first point squared distance
+         * @param id1 first point id
+         * @param d2  second point squared distance
+         * @param id2 second point id
+         * @return true if the first point is farther than the second one, else false
+         */
+        private static boolean farther(double d1, int id1, double d2, int id2) {
+            return d1 > d2 || (d1 == d2 && id1 > id2);
+        }
+
+        /**
+         * Offers the point to the heap (it is accepted only if it is nearer than the farthest point of the full heap)
+         *
+         * @param d     point squared distance
+         * @param point point id
+         */
+        void offer(double d, int point) {
+            int i;
+            if (!isFull()) {
+                i = size++;
+                while (i > 0 && farther(d, point, distance[(i - 1) >>> 1], id[(i - 1) >>> 1])) {
+                    distance[i] = distance[(i - 1) >>> 1];
+                    id[i] = id[(i - 1) >>> 1];
+                    i = (i - 1) >>> 1;
+                }
+            } else if (size > 0 && farther(distance[0], id[0], d, point)) {
+                i = 0;
+                while (2 * i + 1 < size) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && farther(distance[child + 1], id[child + 1], distance[child], id[child])) {
+                        ++child;
+                    }
+                    if (!farther(distance[child], id[child], d, point)) {
+                        break;
+                    }
+                    distance[i] = distance[child];
+                    id[i] = id[child];
+                    i = child;
+                }
+            } else {
+                return;
+            }
+            distance[i] = d;
+            id[i] = point;
+        }
+
+        /**
+         * Squared distance of the farthest point getter
+         *
+         * @return squared distance of the farthest point (+inf if the heap is not full)
+         */
+        double bound() {
+            return isFull() && size > 0 ? distance[0] : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Removes all points from the heap
+         *
+         * @return ids of the points ordered by distance (ascending)
+         */
+        int[] drain() {
+            int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = id[0];
+                double d = distance[--size];
+                int point = id[size];
+                int i = 0;
+                while (2 * i + 1 < size) {
+                    int child = 2 * i + 1;
+                    if (child + 1 < size && farther(distance[child + 1], id[child + 1], distance[child], id[child])) {
+                        ++child;
+                    }
+                    if (!farther(distance[child], id[child], d, point)) {
+                        break;
+                    }
+                    distance[i] = distance[child];
+                    id[i] = id[child];
+                    i = child;
+                }
+                distance[i] = d;
+                id[i] = point;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Constructor <br>
+     * Indexes the first {@code count} points, the point id is its index in the list
+     *
+     * @param points points to index
+     * @param count  count of the points to index
+     */
+    public SpatialIndex(List<Point> points, int count) {
+        x = new double[count];
+        y = new double[count];
+        ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            Point p = points.get(i);
+            x[i] = p.x();
+            y[i] = p.y();
+            ids[i] = i;
+        }
+        build(0, count, 0);
+    }
+
+    /**
+     * Helper method <br>
+     * Builds the subtree of the range
+     *
+     * @param from  range start (inclusive)
+     * @param to    range end (exclusive)
+     * @param depth subtree depth
+     */
+    private void build(int from, int to, int depth) {
+        while (to - from > 1) {
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, depth & 1);
+            build(mid + 1, to, depth + 1);
+            to = mid;
+            ++depth;
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Reorders the range so that the point at the position is at its sorted place by the coordinate
+     * (points before it are not greater, points after it are not lower)
+     *
+     * @param left     range start (inclusive)
+     * @param right    range end (inclusive)
+     * @param position position to select
+     * @param axis     coordinate (0 - X, 1 - Y)
+     */
+    private void select(int left, int right, int position, int axis) {
+        double[] c = axis == 0 ? x : y;
+        while (left < right) {
+            double pivot = c[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (c[i] < pivot) {
+                    ++i;
+                }
+                while (c[j] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (position <= j) {
+                right = j;
+            } else if (position >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Swaps two points
+     *
+     * @param i first point position
+     * @param j second point position
+     */
+    private void swap(int i, int j) {
+        double tx = x[i];
+        x[i] = x[j];
+        x[j] = tx;
+        double ty = y[i];
+        y[i] = y[j];
+        y[j] = ty;
+        int tid = ids[i];
+        ids[i] = ids[j];
+        ids[j] = tid;
+    }
+
+    /**
+     * Finds the nearest points
+     *
+     * @param px    query X-coordinate
+     * @param py    query Y-coordinate
+     * @param count maximal count of the points to find
+     * @return ids of the nearest points ordered by distance and then by id (at most count)
+     */
+    public int[] findNearest(double px, double py, int count) {
+        NearestHeap heap = new NearestHeap(Math.max(0, Math.min(count, ids.length)));
+        if (heap.id.length > 0) {
+            findNearest(0, ids.length, 0, px, py, heap);
+        }
+        return heap.drain();
+    }
+
+    /**
+     * Helper method <br>
+     * Searches the subtree for the nearest points
+     *
+     * @param from  range start (inclusive)
+     * @param to    range end (exclusive)
+     * @param depth subtree depth
+     * @param px    query X-coordinate
+     * @param py    query Y-coordinate
+     * @param heap  nearest points found so far
+     */
+    private void findNearest(int from, int to, int depth, double px, double py, NearestHeap heap) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double dx = px - x[mid];
+        double dy = py - y[mid];
+        heap.offer(dx * dx + dy * dy, ids[mid]);
+        double diff = (depth & 1) == 0 ? dx : dy;
+        if (diff < 0) {
+            findNearest(from, mid, depth + 1, px, py, heap);
+            if (diff * diff <= heap.bound()) {
+                findNearest(mid + 1, to, depth + 1, px, py, heap);
+            }
+        } else {
+            findNearest(mid + 1, to, depth + 1, px, py, heap);
+            if (diff * diff <= heap.bound()) {
+                findNearest(from, mid, depth + 1, px, py, heap);
+            }
+        }
+    }
+}
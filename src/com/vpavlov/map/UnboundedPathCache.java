@@ -0,0 +1,101 @@
+package com.vpavlov.map;
+
+import com.vpavlov.map.api.IPathCache;
+
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Path cache without eviction (all computed paths and trees are kept)
+ *
+ * @author vpavlov
+ */
+public class UnboundedPathCache implements IPathCache {
+
+    /**
+     * Cached paths by (oasis id, warehouse id) key
+     */
+    private final Map<Long, PriorityQueue<Path>> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Cached shortest path trees by warehouse id
+     */
+    private final Map<Integer, ShortestPathTree[]> trees = new ConcurrentHashMap<>();
+
+    /**
+     * Estimated memory of the cached paths
+     */
+    private final AtomicLong weight = new AtomicLong();
+
+    /**
+     * Hits count
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Misses count
+     */
+    private final LongAdder misses = new LongAdder();
+
+    @Override
+    public PriorityQueue<Path> get(int oasisId, int warehouseId) {
+        PriorityQueue<Path> queue = paths.get(IPathCache.key(oasisId, warehouseId));
+        (queue == null ? misses : hits).increment();
+        return queue;
+    }
+
+    @Override
+    public void put(int oasisId, int warehouseId, PriorityQueue<Path> queue) {
+        PriorityQueue<Path> previous = paths.put(IPathCache.key(oasisId, warehouseId), queue);
+        weight.addAndGet(IPathCache.estimateWeight(queue) - (previous == null ? 0 : IPathCache.estimateWeight(previous)));
+    }
+
+    @Override
+    public boolean contains(int oasisId, int warehouseId) {
+        return paths.containsKey(IPathCache.key(oasisId, warehouseId));
+    }
+
+    @Override
+    public ShortestPathTree[] getTrees(int warehouseId) {
+        return trees.get(warehouseId);
+    }
+
+    @Override
+    public boolean canStoreTrees(long weight) {
+        return true;
+    }
+
+    @Override
+    public void putTrees(int warehouseId, ShortestPathTree[] warehouseTrees) {
+        ShortestPathTree[] previous = trees.put(warehouseId, warehouseTrees);
+        weight.addAndGet(IPathCache.estimateWeight(warehouseTrees) - (previous == null ? 0 : IPathCache.estimateWeight(previous)));
+    }
+
+    @Override
+    public long size() {
+        return paths.size();
+    }
+
+    @Override
+    public long getWeight() {
+        return weight.get();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return 0;
+    }
+}
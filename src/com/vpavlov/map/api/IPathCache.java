@@ -0,0 +1,145 @@
+package com.vpavlov.map.api;
+
+import com.vpavlov.map.Path;
+import com.vpavlov.map.ShortestPathTree;
+
+import java.util.PriorityQueue;
+
+/**
+ * Cache of warehouse --> oasis paths queues and warehouses shortest path trees interface <br>
+ * Paths and trees share the same memory estimate. Implementations must be thread safe
+ *
+ * @author vpavlov
+ */
+public interface IPathCache {
+
+    /**
+     * Estimated memory of one cache entry (key, map entry and the cached object itself)
+     */
+    long ENTRY_BYTES = 128;
+
+    /**
+     * Creates the cache key
+     *
+     * @param oasisId     oasis id
+     * @param warehouseId warehouse id
+     * @return cache key
+     */
+    static long key(int oasisId, int warehouseId) {
+        return ((long) oasisId << 32) | (warehouseId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Estimates memory used by the cached paths queue
+     *
+     * @param queue paths queue
+     * @return estimated memory in bytes
+     */
+    static long estimateWeight(PriorityQueue<Path> queue) {
+        long weight = ENTRY_BYTES;
+        for (Path path : queue) {
+            weight += path.estimateWeight();
+        }
+        return weight;
+    }
+
+    /**
+     * Estimates memory used by the cached shortest path trees
+     *
+     * @param trees shortest path trees
+     * @return estimated memory in bytes
+     */
+    static long estimateWeight(ShortestPathTree[] trees) {
+        long weight = ENTRY_BYTES;
+        for (ShortestPathTree tree : trees) {
+            weight += tree.estimateWeight();
+        }
+        return weight;
+    }
+
+    /**
+     * Gets the cached paths (counts hit or miss)
+     *
+     * @param oasisId     oasis id
+     * @param warehouseId warehouse id
+     * @return cached paths queue or null if it is not cached
+     */
+    PriorityQueue<Path> get(int oasisId, int warehouseId);
+
+    /**
+     * Stores the paths
+     *
+     * @param oasisId     oasis id
+     * @param warehouseId warehouse id
+     * @param paths       paths queue to store
+     */
+    void put(int oasisId, int warehouseId, PriorityQueue<Path> paths);
+
+    /**
+     * Checks if the paths are cached (does not count hit or miss)
+     *
+     * @param oasisId     oasis id
+     * @param warehouseId warehouse id
+     * @return true if the paths are cached, else false
+     */
+    boolean contains(int oasisId, int warehouseId);
+
+    /**
+     * Gets the cached shortest path trees of the warehouse (does not count hit or miss)
+     *
+     * @param warehouseId trees root
+     * @return cached trees or null if they are not cached
+     */
+    ShortestPathTree[] getTrees(int warehouseId);
+
+    /**
+     * Checks if the shortest path trees of the estimated memory can be stored without evicting other trees
+     *
+     * @param weight estimated memory of the trees in bytes
+     * @return true if the trees can be stored, else false
+     */
+    boolean canStoreTrees(long weight);
+
+    /**
+     * Stores the shortest path trees of the warehouse (trees that do not fit into the budget are not stored)
+     *
+     * @param warehouseId trees root
+     * @param trees       trees to store
+     */
+    void putTrees(int warehouseId, ShortestPathTree[] trees);
+
+    /**
+     * Cached paths queues count getter
+     *
+     * @return count of cached paths queues (trees are not counted)
+     */
+    long size();
+
+    /**
+     * Estimated memory used by the cached paths and trees getter
+     *
+     * @return estimated memory in bytes
+     */
+    long getWeight();
+
+    /**
+     * Hits count getter
+     *
+     * @return count of successful {@link #get(int, int)} calls
+     */
+    long getHits();
+
+    /**
+     * Misses count getter
+     *
+     * @return count of unsuccessful {@link #get(int, int)} calls
+     */
+    long getMisses();
+
+    /**
+     * Evictions count getter
+     *
+     * @return count of evicted paths queues
+     */
+    long getEvictions();
+}
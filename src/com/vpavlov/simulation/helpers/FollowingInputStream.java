@@ -0,0 +1,86 @@
+package com.vpavlov.simulation.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Input stream following the growing file (like {@code tail -f}) <br>
+ * When the end of the file is reached, reading waits for new data appended to the file.
+ * The end of the stream is reported only after the file has not grown for the idle timeout.
+ * Already read data are never read again.
+ *
+ * @author vpavlov
+ */
+public class FollowingInputStream extends InputStream {
+
+    /**
+     * Interval of the file size checks (in milliseconds)
+     */
+    private static final long POLL_INTERVAL = 50;
+
+    /**
+     * Channel of the followed file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Idle timeout in milliseconds (0 - wait forever)
+     */
+    private final long idleTimeout;
+
+    /**
+     * Constructor
+     *
+     * @param file        file to follow
+     * @param idleTimeout idle timeout in milliseconds (0 - wait forever)
+     * @throws IOException if the file cannot be opened
+     */
+    public FollowingInputStream(File file, long idleTimeout) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        long idleSince = System.currentTimeMillis();
+        for (; ; ) {
+            int read = channel.read(buffer);
+            if (read > 0) {
+                return read;
+            }
+            if (idleTimeout > 0 && System.currentTimeMillis() - idleSince >= idleTimeout) {
+                return -1;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - channel.position()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
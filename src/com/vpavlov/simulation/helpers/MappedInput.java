@@ -0,0 +1,290 @@
+package com.vpavlov.simulation.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Read only file mapped into the memory <br>
+ * File is mapped by segments, so it can be larger than 2 GB. <br>
+ * Provides allocation-free parsing of numbers directly from the mapped bytes.
+ *
+ * @author vpavlov
+ */
+public class MappedInput {
+
+    /**
+     * Segment size (power of two)
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * Mask of the position in the segment
+     */
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * Exactly representable powers of ten
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Maximal mantissa that is exactly representable as double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Mapped segments of the file
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * File size in bytes
+     */
+    private final long size;
+
+    /**
+     * Constructor
+     *
+     * @param file file to map
+     * @throws IOException if the file cannot be mapped
+     */
+    public MappedInput(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            size = channel.size();
+            int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_MASK + 1, size - start));
+            }
+        }
+    }
+
+    /**
+     * File size getter
+     *
+     * @return file size in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Byte getter
+     *
+     * @param position byte position in the file
+     * @return byte at the position
+     */
+    public byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Integer getter (big-endian)
+     *
+     * @param position integer position in the file
+     * @return integer at the position
+     */
+    public int getInt(long position) {
+        MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int offset = (int) (position & SEGMENT_MASK);
+        if (offset + Integer.BYTES <= segment.limit()) {
+            return segment.getInt(offset);
+        }
+        int result = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            result = (result << 8) | (get(position + i) & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * Long getter (big-endian)
+     *
+     * @param position long position in the file
+     * @return long at the position
+     */
+    public long getLong(long position) {
+        return ((long) getInt(position) << 32) | (getInt(position + Integer.BYTES) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads integers (big-endian) into the array
+     *
+     * @param position position of the first integer in the file
+     * @param target   array to fill
+     */
+    public void getInts(long position, int[] target) {
+        int done = 0;
+        while (done < target.length) {
+            long current = position + (long) done * Integer.BYTES;
+            MappedByteBuffer segment = segments[(int) (current >>> SEGMENT_SHIFT)];
+            int offset = (int) (current & SEGMENT_MASK);
+            int count = Math.min(target.length - done, (segment.limit() - offset) / Integer.BYTES);
+            if (count == 0) {
+                target[done++] = getInt(current);
+            } else {
+                segment.slice(offset, count * Integer.BYTES).asIntBuffer().get(target, done, count);
+                done += count;
+            }
+        }
+    }
+
+    /**
+     * Reads doubles (big-endian) into the array
+     *
+     * @param position position of the first double in the file
+     * @param target   array to fill
+     */
+    public void getDoubles(long position, double[] target) {
+        int done = 0;
+        while (done < target.length) {
+            long current = position + (long) done * Double.BYTES;
+            MappedByteBuffer segment = segments[(int) (current >>> SEGMENT_SHIFT)];
+            int offset = (int) (current & SEGMENT_MASK);
+            int count = Math.min(target.length - done, (segment.limit() - offset) / Double.BYTES);
+            if (count == 0) {
+                target[done++] = Double.longBitsToDouble(getLong(current));
+            } else {
+                segment.slice(offset, count * Double.BYTES).asDoubleBuffer().get(target, done, count);
+                done += count;
+            }
+        }
+    }
+
+    /**
+     * Computes CRC32 checksum of the whole file
+     *
+     * @return file checksum
+     */
+    public long checksum() {
+        CRC32 crc = new CRC32();
+        for (MappedByteBuffer segment : segments) {
+            crc.update(segment.duplicate());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Decodes bytes in the range as UTF-8 string
+     *
+     * @param start range start (inclusive)
+     * @param end   range end (exclusive)
+     * @return decoded string
+     */
+    public String getString(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses integer from the range (the same format as {@link Integer#parseInt(String)} accepts)
+     *
+     * @param start range start (inclusive)
+     * @param end   range end (exclusive)
+     * @return parsed integer
+     * @throws NumberFormatException if the range does not contain an integer
+     */
+    public int parseInt(long start, long end) throws NumberFormatException {
+        long position = start;
+        boolean negative = false;
+        if (position < end && (get(position) == '-' || get(position) == '+')) {
+            negative = get(position++) == '-';
+        }
+        if (position == end) {
+            throw new NumberFormatException("For input string: \"" + getString(start, end) + "\"");
+        }
+        long result = 0;
+        for (; position < end; ++position) {
+            int digit = get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(start, end) + "\"");
+            }
+            result = result * 10 + digit;
+            if (result > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + getString(start, end) + "\"");
+            }
+        }
+        result = negative ? -result : result;
+        if (result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(start, end) + "\"");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Parses double from the range <br>
+     * Plain decimal numbers with short mantissa are parsed directly from the bytes (correctly rounded),
+     * other formats are delegated to {@link Double#parseDouble(String)}
+     *
+     * @param start range start (inclusive)
+     * @param end   range end (exclusive)
+     * @return parsed double
+     * @throws NumberFormatException if the range does not contain a number
+     */
+    public double parseDouble(long start, long end) throws NumberFormatException {
+        long position = start;
+        boolean negative = false;
+        if (position < end && (get(position) == '-' || get(position) == '+')) {
+            negative = get(position++) == '-';
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; position < end; ++position) {
+            byte b = get(position);
+            if (b >= '0' && b <= '9') {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                    return Double.parseDouble(getString(start, end));
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                ++digits;
+                if (dot) {
+                    --exponent;
+                }
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (position < end && (get(position) == 'e' || get(position) == 'E') && digits > 0) {
+            ++position;
+            boolean negativeExponent = false;
+            if (position < end && (get(position) == '-' || get(position) == '+')) {
+                negativeExponent = get(position++) == '-';
+            }
+            int value = 0;
+            long exponentStart = position;
+            for (; position < end && value < 1000; ++position) {
+                int digit = get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (exponentStart == position) {
+                return Double.parseDouble(getString(start, end));
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (position != end || digits == 0 || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(getString(start, end));
+        }
+        double result = mantissa;
+        result = exponent < 0 ? result / POWERS_OF_TEN[-exponent] : result * POWERS_OF_TEN[exponent];
+        return negative ? -result : result;
+    }
+}
@@ -0,0 +1,170 @@
+package com.vpavlov.simulation.helpers;
+
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Scenario reader scanning UTF-8 bytes of the memory mapped file <br>
+ * Skips (nested) comments the same way as {@link ScenarioTokenizer},
+ * numbers are parsed directly from the mapped bytes without creating strings.
+ *
+ * @author vpavlov
+ */
+public class MappedScenarioReader implements IScenarioReader {
+
+    /**
+     * Comment start symbol (U+1F42A) in UTF-8
+     */
+    static final byte[] COMMENT_START = {(byte) 0xF0, (byte) 0x9F, (byte) 0x90, (byte) 0xAA};
+
+    /**
+     * Comment end symbol (U+1F3DC) in UTF-8
+     */
+    static final byte[] COMMENT_END = {(byte) 0xF0, (byte) 0x9F, (byte) 0x8F, (byte) 0x9C};
+
+    /**
+     * Mapped file to read
+     */
+    private final MappedInput input;
+
+    /**
+     * Position of the reading
+     */
+    private long position;
+
+    /**
+     * End of the reading (exclusive)
+     */
+    private final long end;
+
+    /**
+     * Current comments nesting depth
+     */
+    private int depth = 0;
+
+    /**
+     * Start of the next token (-1 if it has not been found yet)
+     */
+    private long tokenStart = -1;
+
+    /**
+     * End of the next token (exclusive)
+     */
+    private long tokenEnd = -1;
+
+    /**
+     * Constructor
+     *
+     * @param input mapped file to read
+     */
+    public MappedScenarioReader(MappedInput input) {
+        this.input = input;
+        this.position = 0;
+        this.end = input.size();
+    }
+
+    /**
+     * Checks if the byte is a white symbol (the same set as regex {@code \s})
+     *
+     * @param b byte to check
+     * @return true if the byte is a white symbol, else false
+     */
+    static boolean isWhiteSymbol(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Checks if the input contains the symbol at the position
+     *
+     * @param input    input to check
+     * @param position position in the input
+     * @param end      end of the input
+     * @param symbol   UTF-8 bytes of the symbol
+     * @return true if the symbol is at the position, else false
+     */
+    static boolean isSymbol(MappedInput input, long position, long end, byte[] symbol) {
+        if (end - position < symbol.length) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length; i++) {
+            if (input.get(position + i) != symbol[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the next token bounds
+     *
+     * @return true if the token has been found, else false
+     */
+    private boolean findToken() {
+        if (tokenStart >= 0) {
+            return true;
+        }
+        while (position < end) {
+            byte b = input.get(position);
+            if (b == COMMENT_START[0] && isSymbol(input, position, end, COMMENT_START)) {
+                position += COMMENT_START.length;
+                ++depth;
+            } else if (b == COMMENT_END[0] && depth > 0 && isSymbol(input, position, end, COMMENT_END)) {
+                position += COMMENT_END.length;
+                --depth;
+            } else if (depth > 0 || isWhiteSymbol(b)) {
+                ++position;
+            } else {
+                tokenStart = position;
+                while (position < end && !isWhiteSymbol(input.get(position)) && !isSymbol(input, position, end, COMMENT_START)) {
+                    ++position;
+                }
+                tokenEnd = position;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves to the next token
+     *
+     * @return start of the token (the token end is in {@link #tokenEnd})
+     * @throws NoSuchElementException if there is no next value
+     */
+    private long skipToken() throws NoSuchElementException {
+        if (!findToken()) {
+            throw new NoSuchElementException("Scenario has no next value");
+        }
+        long start = tokenStart;
+        tokenStart = -1;
+        return start;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return findToken();
+    }
+
+    @Override
+    public String next() throws NoSuchElementException {
+        long start = skipToken();
+        return input.getString(start, tokenEnd);
+    }
+
+    @Override
+    public int nextInt() throws NoSuchElementException, NumberFormatException {
+        long start = skipToken();
+        return input.parseInt(start, tokenEnd);
+    }
+
+    @Override
+    public double nextDouble() throws NoSuchElementException, NumberFormatException {
+        long start = skipToken();
+        return input.parseDouble(start, tokenEnd);
+    }
+
+    @Override
+    public void close() {
+    }
+}
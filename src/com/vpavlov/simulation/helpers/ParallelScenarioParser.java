@@ -0,0 +1,345 @@
+package com.vpavlov.simulation.helpers;
+
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Parallel parser of the memory mapped scenario <br>
+ * The file is split into chunks on white symbols, so values never cross chunks. Parsing has two parallel passes:
+ * <ol>
+ *     <li>every chunk computes how it changes comment depth (closes of outer comments and opens of new ones)</li>
+ *     <li>after cheap prefix scan of these summaries every chunk knows its starting depth and finds its values</li>
+ * </ol>
+ * Values are stored as offsets to the mapped file, so the result is the same value sequence as sequential parsing.
+ *
+ * @author vpavlov
+ */
+public class ParallelScenarioParser {
+
+    /**
+     * Minimal chunk size in bytes
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Maximal chunk size in bytes (offsets in the chunk are stored as integers)
+     */
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+    /**
+     * Chunks count per thread (for better load balancing)
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Initial capacity of the chunk values offsets
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Part of the file parsed by one task
+     */
+    private static class Chunk {
+
+        /**
+         * Chunk start (inclusive)
+         */
+        final long start;
+
+        /**
+         * Chunk end (exclusive)
+         */
+        final long end;
+
+        /**
+         * Count of comments that the chunk closes, but that were opened before the chunk
+         */
+        int closes = 0;
+
+        /**
+         * Count of comments that the chunk opens and does not close
+         */
+        int opens = 0;
+
+        /**
+         * Comment depth at the chunk start
+         */
+        int startDepth = 0;
+
+        /**
+         * Values starts (relative to the chunk start)
+         */
+        int[] starts = new int[INITIAL_CAPACITY];
+
+        /**
+         * Values ends (relative to the chunk start, exclusive)
+         */
+        int[] ends = new int[INITIAL_CAPACITY];
+
+        /**
+         * Values count
+         */
+        int count = 0;
+
+        /**
+         * Constructor
+         *
+         * @param start chunk start
+         * @param end   chunk end
+         */
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Adds value offsets
+         *
+         * @param valueStart value start
+         * @param valueEnd   value end
+         */
+        void add(long valueStart, long valueEnd) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = (int) (valueStart - start);
+            ends[count] = (int) (valueEnd - start);
+            ++count;
+        }
+    }
+
+    /**
+     * Reader of the values found by the parser
+     */
+    private class IndexedScenarioReader implements IScenarioReader {
+
+        /**
+         * Current chunk index
+         */
+        private int chunk = 0;
+
+        /**
+         * Current value index in the chunk
+         */
+        private int index = 0;
+
+        /**
+         * Absolute start of the current value
+         */
+        private long valueStart;
+
+        /**
+         * Absolute end of the current value
+         */
+        private long valueEnd;
+
+        /**
+         * Moves to the next value
+         *
+         * @throws NoSuchElementException if there is no next value
+         */
+        private void advance() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Scenario has no next value");
+            }
+            Chunk c = chunks.get(chunk);
+            valueStart = c.start + c.starts[index];
+            valueEnd = c.start + c.ends[index];
+            ++index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (chunk < chunks.size() && index == chunks.get(chunk).count) {
+                ++chunk;
+                index = 0;
+            }
+            return chunk < chunks.size();
+        }
+
+        @Override
+        public String next() throws NoSuchElementException {
+            advance();
+            return input.getString(valueStart, valueEnd);
+        }
+
+        @Override
+        public int nextInt() throws NoSuchElementException, NumberFormatException {
+            advance();
+            return input.parseInt(valueStart, valueEnd);
+        }
+
+        @Override
+        public double nextDouble() throws NoSuchElementException, NumberFormatException {
+            advance();
+            return input.parseDouble(valueStart, valueEnd);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Mapped file to parse
+     */
+    private final MappedInput input;
+
+    /**
+     * Pool to run the parsing tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * File chunks
+     */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param input mapped file to parse
+     * @param pool  pool to run the parsing tasks
+     */
+    public ParallelScenarioParser(MappedInput input, ForkJoinPool pool) {
+        this(input, pool, (int) Math.max(
+                input.size() / MAX_CHUNK_SIZE + 1,
+                Math.min(input.size() / MIN_CHUNK_SIZE, (long) pool.getParallelism() * CHUNKS_PER_THREAD)
+        ));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param input      mapped file to parse
+     * @param pool       pool to run the parsing tasks
+     * @param chunkCount desired count of chunks (every chunk must be smaller than 2 GB)
+     */
+    public ParallelScenarioParser(MappedInput input, ForkJoinPool pool, int chunkCount) {
+        this.input = input;
+        this.pool = pool;
+        splitChunks(chunkCount);
+    }
+
+    /**
+     * Splits the file into chunks, every chunk (except the last one) ends with a white symbol
+     *
+     * @param chunkCount desired count of chunks
+     */
+    private void splitChunks(int chunkCount) {
+        long size = input.size();
+        long start = 0;
+        for (int i = 1; i <= chunkCount && start < size; i++) {
+            long end = i == chunkCount ? size : Math.max(start, size / chunkCount * i);
+            while (end < size && !MappedScenarioReader.isWhiteSymbol(input.get(end))) {
+                ++end;
+            }
+            end = Math.min(size, end + 1);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+    }
+
+    /**
+     * First pass <br>
+     * Counts comments that the chunk closes and opens
+     *
+     * @param chunk chunk to scan
+     */
+    private void scanComments(Chunk chunk) {
+        long size = input.size();
+        for (long position = chunk.start; position < chunk.end; ) {
+            byte b = input.get(position);
+            if (b == MappedScenarioReader.COMMENT_START[0] && MappedScenarioReader.isSymbol(input, position, size, MappedScenarioReader.COMMENT_START)) {
+                ++chunk.opens;
+                position += MappedScenarioReader.COMMENT_START.length;
+            } else if (b == MappedScenarioReader.COMMENT_END[0] && MappedScenarioReader.isSymbol(input, position, size, MappedScenarioReader.COMMENT_END)) {
+                if (chunk.opens > 0) {
+                    --chunk.opens;
+                } else {
+                    ++chunk.closes;
+                }
+                position += MappedScenarioReader.COMMENT_END.length;
+            } else {
+                ++position;
+            }
+        }
+    }
+
+    /**
+     * Second pass <br>
+     * Finds values of the chunk
+     *
+     * @param chunk chunk to parse
+     */
+    private void findValues(Chunk chunk) {
+        long size = input.size();
+        int depth = chunk.startDepth;
+        long position = chunk.start;
+        while (position < chunk.end) {
+            byte b = input.get(position);
+            if (b == MappedScenarioReader.COMMENT_START[0] && MappedScenarioReader.isSymbol(input, position, size, MappedScenarioReader.COMMENT_START)) {
+                position += MappedScenarioReader.COMMENT_START.length;
+                ++depth;
+            } else if (b == MappedScenarioReader.COMMENT_END[0] && depth > 0 && MappedScenarioReader.isSymbol(input, position, size, MappedScenarioReader.COMMENT_END)) {
+                position += MappedScenarioReader.COMMENT_END.length;
+                --depth;
+            } else if (depth > 0 || MappedScenarioReader.isWhiteSymbol(b)) {
+                ++position;
+            } else {
+                long start = position;
+                while (position < chunk.end && !MappedScenarioReader.isWhiteSymbol(input.get(position)) && !MappedScenarioReader.isSymbol(input, position, size, MappedScenarioReader.COMMENT_START)) {
+                    ++position;
+                }
+                chunk.add(start, position);
+            }
+        }
+    }
+
+    /**
+     * Runs the task for every chunk in the pool and waits for them
+     *
+     * @param task task to run
+     */
+    private void forEachChunk(Consumer<Chunk> task) {
+        List<Callable<Void>> tasks = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            tasks.add(() -> {
+                task.accept(chunk);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Parses the file
+     *
+     * @return scenario reader with values from file without comments and white symbols
+     */
+    public IScenarioReader parse() {
+        forEachChunk(this::scanComments);
+        int depth = 0;
+        for (Chunk chunk : chunks) {
+            chunk.startDepth = depth;
+            depth = Math.max(depth - chunk.closes, 0) + chunk.opens;
+        }
+        forEachChunk(this::findValues);
+        return new IndexedScenarioReader();
+    }
+}
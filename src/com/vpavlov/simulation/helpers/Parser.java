@@ -1,10 +1,12 @@
 package com.vpavlov.simulation.helpers;
 
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
+
 import java.io.*;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Abstract file parser class
@@ -14,24 +16,61 @@ import java.util.stream.Stream;
 public abstract class Parser {
 
     /**
-     * Reading the file
+     * Opens the file for streaming parsing
      *
-     * @param file -file to read
-     * @return file content
+     * @param file file to parse
+     * @return scenario reader with values from file without comments and white symbols
      */
-    private static String getData(File file) {
-        StringBuilder out = new StringBuilder();
-        Stream<String> lines;
-        try (BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
-            lines = input.lines();
-            List<String> list = lines.toList();
-            for (String line : list) {
-                out.append(line).append(" ");
-            }
+    public static IScenarioReader openFile(File file) {
+        try {
+            return new ScenarioTokenizer(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Opens the growing file for streaming parsing <br>
+     * Reading waits for data appended to the file, the input ends when the file does not grow for the idle timeout
+     *
+     * @param file        file to parse
+     * @param idleTimeout idle timeout in milliseconds (0 - wait forever)
+     * @return scenario reader with values from file without comments and white symbols
+     */
+    public static IScenarioReader followFile(File file, long idleTimeout) {
+        try {
+            return new ScenarioTokenizer(new InputStreamReader(new FollowingInputStream(file, idleTimeout), StandardCharsets.UTF_8), true);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Maps the file into the memory for byte-level parsing
+     *
+     * @param file file to parse
+     * @return scenario reader with values from file without comments and white symbols
+     */
+    public static IScenarioReader mapFile(File file) {
+        try {
+            return new MappedScenarioReader(new MappedInput(file));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Maps the file into the memory and parses it in parallel
+     *
+     * @param file file to parse
+     * @return scenario reader with values from file without comments and white symbols
+     */
+    public static IScenarioReader parseFileParallel(File file) {
+        try {
+            return new ParallelScenarioParser(new MappedInput(file), ForkJoinPool.commonPool()).parse();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return out.toString();
     }
 
     /**
@@ -41,25 +80,12 @@ public abstract class Parser {
      * @return array of values from file without comments and white symbols
      */
     public static String[] parseFile(File file) {
-        StringBuilder str = new StringBuilder(getData(file));
-        Deque<Integer> commentsStarts = new LinkedList<>();
-        int i = 0;
-        while (i < str.length()) {
-            int code = str.charAt(i);
-            if (code == '\uD83D' && i + 1 < str.length() && str.charAt(i + 1) == '\uDC2A') {
-                commentsStarts.add(i);
-                i++;
-            } else {
-                if (!commentsStarts.isEmpty() && code == '\uD83C' && i + 1 < str.length() && str.charAt(i + 1) == '\uDFDC') {
-                    int begin = commentsStarts.removeLast();
-                    str.replace(begin, i + 2, " ");
-                    i = begin;
-                } else {
-                    i++;
-                }
+        List<String> values = new ArrayList<>();
+        try (IScenarioReader reader = openFile(file)) {
+            while (reader.hasNext()) {
+                values.add(reader.next());
             }
         }
-
-        return str.toString().trim().split("\\s+");
+        return values.toArray(new String[0]);
     }
 }
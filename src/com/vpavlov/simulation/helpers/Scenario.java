@@ -0,0 +1,261 @@
+package com.vpavlov.simulation.helpers;
+
+import com.vpavlov.map.Adjacency;
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
+
+import java.io.IOException;
+
+/**
+ * Parsed simulation scenario <br>
+ * All values are stored in primitive arrays (one array per parameter)
+ *
+ * @author vpavlov
+ */
+public class Scenario {
+
+    /**
+     * Warehouses X-coordinates {x}
+     */
+    public final double[] warehouseX;
+
+    /**
+     * Warehouses Y-coordinates {y}
+     */
+    public final double[] warehouseY;
+
+    /**
+     * Warehouses supply amounts {ks}
+     */
+    public final int[] warehouseSupplyAmount;
+
+    /**
+     * Warehouses supply timeouts {ts}
+     */
+    public final double[] warehouseSupplyTimeout;
+
+    /**
+     * Warehouses loading times {tn}
+     */
+    public final double[] warehouseLoadingTime;
+
+    /**
+     * Oases X-coordinates {x}
+     */
+    public final double[] oasisX;
+
+    /**
+     * Oases Y-coordinates {y}
+     */
+    public final double[] oasisY;
+
+    /**
+     * Roads first points (indexed from 0)
+     */
+    public final int[] roadFrom;
+
+    /**
+     * Roads second points (indexed from 0)
+     */
+    public final int[] roadTo;
+
+    /**
+     * Camel types names {camelType}
+     */
+    public final String[] camelName;
+
+    /**
+     * Camel types minimal speeds {vmin}
+     */
+    public final double[] camelMinSpeed;
+
+    /**
+     * Camel types maximal speeds {vmax}
+     */
+    public final double[] camelMaxSpeed;
+
+    /**
+     * Camel types minimal distances {dmin}
+     */
+    public final double[] camelMinDistance;
+
+    /**
+     * Camel types maximal distances {dmax}
+     */
+    public final double[] camelMaxDistance;
+
+    /**
+     * Camel types drink times {td}
+     */
+    public final double[] camelDrinkTime;
+
+    /**
+     * Camel types maximal loads {kd}
+     */
+    public final int[] camelMaxLoad;
+
+    /**
+     * Camel types herd proportions {pd}
+     */
+    public final double[] camelProportion;
+
+    /**
+     * Count of requests {P} <br>
+     * Requests themselves are not stored, they are read on demand by {@link com.vpavlov.simulation.helpers.api.IRequestSource}
+     */
+    public final int requestCount;
+
+    /**
+     * Adjacency of the roads (null if the scenario has not been loaded from the snapshot)
+     */
+    public final Adjacency adjacency;
+
+    /**
+     * Constructor <br>
+     * Reads the whole scenario except the requests definitions (the reader stays positioned at them)
+     *
+     * @param reader scenario reader
+     */
+    public Scenario(IScenarioReader reader) {
+        int warehouseCount = reader.nextInt();
+        warehouseX = new double[warehouseCount];
+        warehouseY = new double[warehouseCount];
+        warehouseSupplyAmount = new int[warehouseCount];
+        warehouseSupplyTimeout = new double[warehouseCount];
+        warehouseLoadingTime = new double[warehouseCount];
+        for (int i = 0; i < warehouseCount; i++) {
+            warehouseX[i] = reader.nextDouble();
+            warehouseY[i] = reader.nextDouble();
+            warehouseSupplyAmount[i] = reader.nextInt();
+            warehouseSupplyTimeout[i] = reader.nextDouble();
+            warehouseLoadingTime[i] = reader.nextDouble();
+        }
+
+        int oasesCount = reader.nextInt();
+        oasisX = new double[oasesCount];
+        oasisY = new double[oasesCount];
+        for (int i = 0; i < oasesCount; i++) {
+            oasisX[i] = reader.nextDouble();
+            oasisY[i] = reader.nextDouble();
+        }
+
+        int roadsCount = reader.nextInt();
+        roadFrom = new int[roadsCount];
+        roadTo = new int[roadsCount];
+        for (int i = 0; i < roadsCount; i++) {
+            roadFrom[i] = reader.nextInt() - 1;
+            roadTo[i] = reader.nextInt() - 1;
+        }
+
+        int camelsCount = reader.nextInt();
+        camelName = new String[camelsCount];
+        camelMinSpeed = new double[camelsCount];
+        camelMaxSpeed = new double[camelsCount];
+        camelMinDistance = new double[camelsCount];
+        camelMaxDistance = new double[camelsCount];
+        camelDrinkTime = new double[camelsCount];
+        camelMaxLoad = new int[camelsCount];
+        camelProportion = new double[camelsCount];
+        for (int i = 0; i < camelsCount; i++) {
+            camelName[i] = reader.next();
+            camelMinSpeed[i] = reader.nextDouble();
+            camelMaxSpeed[i] = reader.nextDouble();
+            camelMinDistance[i] = reader.nextDouble();
+            camelMaxDistance[i] = reader.nextDouble();
+            camelDrinkTime[i] = reader.nextDouble();
+            camelMaxLoad[i] = reader.nextInt();
+            camelProportion[i] = reader.nextDouble();
+        }
+
+        requestCount = reader.nextInt();
+        adjacency = null;
+    }
+
+    /**
+     * Constructor <br>
+     * Reads the scenario from the snapshot
+     *
+     * @param reader snapshot reader
+     * @throws IOException if the snapshot is corrupted
+     */
+    Scenario(ScenarioSnapshot.Reader reader) throws IOException {
+        warehouseX = reader.readDoubles();
+        warehouseY = reader.readDoubles();
+        warehouseSupplyAmount = reader.readInts();
+        warehouseSupplyTimeout = reader.readDoubles();
+        warehouseLoadingTime = reader.readDoubles();
+        oasisX = reader.readDoubles();
+        oasisY = reader.readDoubles();
+        roadFrom = reader.readInts();
+        roadTo = reader.readInts();
+        camelName = reader.readStrings();
+        camelMinSpeed = reader.readDoubles();
+        camelMaxSpeed = reader.readDoubles();
+        camelMinDistance = reader.readDoubles();
+        camelMaxDistance = reader.readDoubles();
+        camelDrinkTime = reader.readDoubles();
+        camelMaxLoad = reader.readInts();
+        camelProportion = reader.readDoubles();
+        requestCount = reader.readInt();
+        int[] offsets = reader.readInts();
+        int[] targets = reader.readInts();
+        double[] edgeLength = reader.readDoubles();
+        int[] edgesByLength = reader.readInts();
+        double meanEdgeLength = reader.readDouble();
+        try {
+            adjacency = new Adjacency(warehouseX.length + oasisX.length, offsets, targets, edgeLength, edgesByLength, meanEdgeLength);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot is corrupted", e);
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Builds the adjacency of the roads (warehouses are the first vertexes, oases follow them)
+     *
+     * @return adjacency of the roads
+     */
+    private Adjacency buildAdjacency() {
+        int warehouseCount = warehouseX.length;
+        double[] x = new double[warehouseCount + oasisX.length];
+        double[] y = new double[x.length];
+        System.arraycopy(warehouseX, 0, x, 0, warehouseCount);
+        System.arraycopy(oasisX, 0, x, warehouseCount, oasisX.length);
+        System.arraycopy(warehouseY, 0, y, 0, warehouseCount);
+        System.arraycopy(oasisY, 0, y, warehouseCount, oasisY.length);
+        return Adjacency.build(x, y, roadFrom, roadTo, roadFrom.length);
+    }
+
+    /**
+     * Writes the scenario into the snapshot <br>
+     * The adjacency of the roads is written too, so it is not built again when the snapshot is loaded
+     *
+     * @param writer snapshot writer
+     * @throws IOException if writing fails
+     */
+    void write(ScenarioSnapshot.Writer writer) throws IOException {
+        writer.writeDoubles(warehouseX);
+        writer.writeDoubles(warehouseY);
+        writer.writeInts(warehouseSupplyAmount);
+        writer.writeDoubles(warehouseSupplyTimeout);
+        writer.writeDoubles(warehouseLoadingTime);
+        writer.writeDoubles(oasisX);
+        writer.writeDoubles(oasisY);
+        writer.writeInts(roadFrom);
+        writer.writeInts(roadTo);
+        writer.writeStrings(camelName);
+        writer.writeDoubles(camelMinSpeed);
+        writer.writeDoubles(camelMaxSpeed);
+        writer.writeDoubles(camelMinDistance);
+        writer.writeDoubles(camelMaxDistance);
+        writer.writeDoubles(camelDrinkTime);
+        writer.writeInts(camelMaxLoad);
+        writer.writeDoubles(camelProportion);
+        writer.writeInt(requestCount);
+        Adjacency roads = adjacency != null ? adjacency : buildAdjacency();
+        writer.writeInts(roads.offsets);
+        writer.writeInts(roads.targets);
+        writer.writeDoubles(roads.edgeLength);
+        writer.writeInts(roads.edgesByLength);
+        writer.writeDouble(roads.meanEdgeLength);
+    }
+}
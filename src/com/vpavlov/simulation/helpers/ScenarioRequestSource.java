@@ -0,0 +1,72 @@
+package com.vpavlov.simulation.helpers;
+
+import com.vpavlov.simulation.helpers.api.IRequestSource;
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
+import com.vpavlov.simulation.model.Request;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Requests source reading requests from the scenario reader on demand <br>
+ * Requests count works as an upper bound, the source also ends with the end of the scenario input
+ * (the followed input may end before all declared requests are appended)
+ *
+ * @author vpavlov
+ */
+public class ScenarioRequestSource implements IRequestSource {
+
+    /**
+     * Count of values of one request definition
+     */
+    private static final int REQUEST_VALUES = 4;
+
+    /**
+     * Scenario reader positioned at the requests definitions
+     */
+    private final IScenarioReader reader;
+
+    /**
+     * Count of requests that have not been read yet
+     */
+    private int remaining;
+
+    /**
+     * Constructor
+     *
+     * @param reader scenario reader positioned at the requests definitions
+     * @param count  count of requests
+     */
+    public ScenarioRequestSource(IScenarioReader reader, int count) {
+        this.reader = reader;
+        this.remaining = count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0 && reader.hasNext();
+    }
+
+    @Override
+    public boolean isBuffered() {
+        return remaining == 0 || reader.isBuffered(REQUEST_VALUES);
+    }
+
+    @Override
+    public boolean isGrowing() {
+        return reader.isGrowing();
+    }
+
+    @Override
+    public Request next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("There are no more requests");
+        }
+        --remaining;
+        return new Request(
+                reader.nextDouble(),
+                reader.nextInt(),
+                reader.nextInt(),
+                reader.nextDouble()
+        );
+    }
+}
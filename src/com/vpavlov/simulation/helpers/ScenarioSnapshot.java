@@ -0,0 +1,535 @@
+package com.vpavlov.simulation.helpers;
+
+import com.vpavlov.simulation.helpers.api.IRequestSource;
+import com.vpavlov.simulation.model.Request;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Compiled binary snapshot of the parsed scenario <br>
+ * Snapshot is stored next to the scenario file (with suffix {@value #SUFFIX}) and is loaded by memory mapping.
+ * It contains the scenario file size, modification time and checksum, so the stale snapshot is detected and can be rebuilt.
+ * The size and the modification time are checked on every load, the checksum is computed only when the snapshot is written
+ * or when the modification time differs (the file has been touched or copied, but its content may be the same).
+ *
+ * @author vpavlov
+ */
+public class ScenarioSnapshot {
+
+    /**
+     * Snapshot file suffix
+     */
+    public static final String SUFFIX = ".snapshot";
+
+    /**
+     * Snapshot file magic number
+     */
+    private static final int MAGIC = 0x48534E50;
+
+    /**
+     * Snapshot format version (must be changed with every format change)
+     */
+    private static final int VERSION = 4;
+
+    /**
+     * Snapshot writer buffer size
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Size of one request in the snapshot
+     */
+    private static final int REQUEST_BYTES = 2 * Double.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * Sequential writer of the snapshot values
+     */
+    static class Writer implements Closeable {
+
+        /**
+         * Channel to write into
+         */
+        private final FileChannel channel;
+
+        /**
+         * Write buffer
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Constructor
+         *
+         * @param file file to write into
+         * @throws IOException if the file cannot be opened
+         */
+        Writer(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Writes the buffer content into the channel
+         *
+         * @throws IOException if writing fails
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Ensures that the buffer has enough space
+         *
+         * @param bytes space needed
+         * @throws IOException if writing fails
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes integer
+         *
+         * @param value value to write
+         * @throws IOException if writing fails
+         */
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes long
+         *
+         * @param value value to write
+         * @throws IOException if writing fails
+         */
+        void writeLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        /**
+         * Writes double
+         *
+         * @param value value to write
+         * @throws IOException if writing fails
+         */
+        void writeDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Writes integers array with its length
+         *
+         * @param values values to write
+         * @throws IOException if writing fails
+         */
+        void writeInts(int[] values) throws IOException {
+            writeInt(values.length);
+            for (int value : values) {
+                writeInt(value);
+            }
+        }
+
+        /**
+         * Writes doubles array with its length
+         *
+         * @param values values to write
+         * @throws IOException if writing fails
+         */
+        void writeDoubles(double[] values) throws IOException {
+            writeInt(values.length);
+            for (double value : values) {
+                writeDouble(value);
+            }
+        }
+
+        /**
+         * Writes strings array with its length
+         *
+         * @param values values to write
+         * @throws IOException if writing fails
+         */
+        void writeStrings(String[] values) throws IOException {
+            writeInt(values.length);
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeInt(bytes.length);
+                for (byte b : bytes) {
+                    ensure(1);
+                    buffer.put(b);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Sequential reader of the snapshot values
+     */
+    static class Reader {
+
+        /**
+         * Mapped snapshot file
+         */
+        private final MappedInput input;
+
+        /**
+         * Current reading position
+         */
+        private long position = 0;
+
+        /**
+         * Constructor
+         *
+         * @param input mapped snapshot file
+         */
+        Reader(MappedInput input) {
+            this.input = input;
+        }
+
+        /**
+         * Copy constructor <br>
+         * New reader continues from the same position independently
+         *
+         * @param reader reader to copy
+         */
+        Reader(Reader reader) {
+            this.input = reader.input;
+            this.position = reader.position;
+        }
+
+        /**
+         * Checks if the snapshot contains enough bytes
+         *
+         * @param bytes bytes needed
+         * @throws IOException if the snapshot is too short
+         */
+        private void check(long bytes) throws IOException {
+            if (bytes < 0 || input.size() - position < bytes) {
+                throw new IOException("Snapshot is corrupted");
+            }
+        }
+
+        /**
+         * Reads integer
+         *
+         * @return read value
+         * @throws IOException if the snapshot is corrupted
+         */
+        int readInt() throws IOException {
+            check(Integer.BYTES);
+            int value = input.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        /**
+         * Reads long
+         *
+         * @return read value
+         * @throws IOException if the snapshot is corrupted
+         */
+        long readLong() throws IOException {
+            check(Long.BYTES);
+            long value = input.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        /**
+         * Reads double
+         *
+         * @return read value
+         * @throws IOException if the snapshot is corrupted
+         */
+        double readDouble() throws IOException {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        /**
+         * Skips specified amount of bytes
+         *
+         * @param bytes bytes to skip
+         * @throws IOException if the snapshot is too short
+         */
+        void skip(long bytes) throws IOException {
+            check(bytes);
+            position += bytes;
+        }
+
+        /**
+         * Reads integers array
+         *
+         * @return read values
+         * @throws IOException if the snapshot is corrupted
+         */
+        int[] readInts() throws IOException {
+            int length = readInt();
+            check((long) length * Integer.BYTES);
+            int[] values = new int[length];
+            input.getInts(position, values);
+            position += (long) length * Integer.BYTES;
+            return values;
+        }
+
+        /**
+         * Reads doubles array
+         *
+         * @return read values
+         * @throws IOException if the snapshot is corrupted
+         */
+        double[] readDoubles() throws IOException {
+            int length = readInt();
+            check((long) length * Double.BYTES);
+            double[] values = new double[length];
+            input.getDoubles(position, values);
+            position += (long) length * Double.BYTES;
+            return values;
+        }
+
+        /**
+         * Reads strings array
+         *
+         * @return read values
+         * @throws IOException if the snapshot is corrupted
+         */
+        String[] readStrings() throws IOException {
+            int count = readInt();
+            check((long) count * Integer.BYTES);
+            String[] values = new String[count];
+            for (int i = 0; i < values.length; i++) {
+                int length = readInt();
+                check(length);
+                values[i] = input.getString(position, position + length);
+                position += length;
+            }
+            return values;
+        }
+
+        /**
+         * Checks that the whole snapshot has been read
+         *
+         * @throws IOException if there are unread bytes
+         */
+        void checkEnd() throws IOException {
+            if (position != input.size()) {
+                throw new IOException("Snapshot is corrupted");
+            }
+        }
+    }
+
+    /**
+     * Requests source reading requests from the snapshot on demand
+     */
+    private static class SnapshotRequestSource implements IRequestSource {
+
+        /**
+         * Snapshot reader positioned at the requests
+         */
+        private final Reader reader;
+
+        /**
+         * Count of requests that have not been read yet
+         */
+        private int remaining;
+
+        /**
+         * Constructor
+         *
+         * @param reader snapshot reader positioned at the requests
+         * @param count  count of requests
+         */
+        SnapshotRequestSource(Reader reader, int count) {
+            this.reader = reader;
+            this.remaining = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Request next() throws NoSuchElementException {
+            if (remaining <= 0) {
+                throw new NoSuchElementException("There are no more requests");
+            }
+            --remaining;
+            try {
+                return new Request(reader.readDouble(), reader.readInt(), reader.readInt(), reader.readDouble());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Scenario file
+     */
+    private final File source;
+
+    /**
+     * Snapshot file
+     */
+    private final File snapshot;
+
+    /**
+     * Scenario file size
+     */
+    private final long sourceSize;
+
+    /**
+     * Scenario file modification time (in milliseconds)
+     */
+    private final long sourceModified;
+
+    /**
+     * Reader of the loaded snapshot (positioned at the requests)
+     */
+    private Reader loaded = null;
+
+    /**
+     * Requests count of the loaded snapshot
+     */
+    private int loadedRequestCount = 0;
+
+    /**
+     * Constructor <br>
+     * Reads the scenario file size and modification time (the file content is not read)
+     *
+     * @param source scenario file
+     */
+    public ScenarioSnapshot(File source) {
+        this.source = source;
+        this.snapshot = new File(source.getPath() + SUFFIX);
+        try {
+            this.sourceSize = Files.size(source.toPath());
+            this.sourceModified = Files.getLastModifiedTime(source.toPath()).toMillis();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Computes the scenario file checksum
+     *
+     * @return CRC32 checksum of the scenario file
+     * @throws IOException if the scenario file can not be read
+     */
+    private long computeChecksum() throws IOException {
+        return new MappedInput(source).checksum();
+    }
+
+    /**
+     * Snapshot file getter
+     *
+     * @return snapshot file
+     */
+    public File getSnapshotFile() {
+        return snapshot;
+    }
+
+    /**
+     * Loads the scenario from the snapshot
+     *
+     * @return loaded scenario or null if the snapshot does not exist, is stale or corrupted
+     */
+    public Scenario load() {
+        if (!snapshot.isFile()) {
+            return null;
+        }
+        try {
+            Reader reader = new Reader(new MappedInput(snapshot));
+            if (reader.readInt() != MAGIC || reader.readInt() != VERSION || reader.readLong() != sourceSize) {
+                return null;
+            }
+            long modified = reader.readLong();
+            long checksum = reader.readLong();
+            if (modified != sourceModified && checksum != computeChecksum()) {
+                return null;
+            }
+            Scenario scenario = new Scenario(reader);
+            Reader requests = new Reader(reader);
+            reader.skip((long) scenario.requestCount * REQUEST_BYTES);
+            reader.checkEnd();
+            loaded = requests;
+            loadedRequestCount = scenario.requestCount;
+            return scenario;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Requests of the loaded snapshot getter <br>
+     * Requests are read from the mapped snapshot on demand
+     *
+     * @return requests source
+     * @throws IllegalStateException if the snapshot has not been loaded
+     */
+    public IRequestSource getRequests() throws IllegalStateException {
+        if (loaded == null) {
+            throw new IllegalStateException("Snapshot has not been loaded");
+        }
+        return new SnapshotRequestSource(new Reader(loaded), loadedRequestCount);
+    }
+
+    /**
+     * Writes the scenario snapshot <br>
+     * Snapshot is written into temporary file first, so the broken snapshot is never left
+     * (the temporary file is deleted if writing fails)
+     *
+     * @param scenario scenario parsed from the scenario file
+     * @param requests all scenario requests (they are written as they come)
+     * @throws IOException if the snapshot can not be written
+     */
+    public void write(Scenario scenario, IRequestSource requests) throws IOException {
+        File temporary = new File(source.getPath() + SUFFIX + ".tmp");
+        try {
+            try (Writer writer = new Writer(temporary)) {
+                writer.writeInt(MAGIC);
+                writer.writeInt(VERSION);
+                writer.writeLong(sourceSize);
+                writer.writeLong(sourceModified);
+                writer.writeLong(computeChecksum());
+                scenario.write(writer);
+                for (int i = 0; i < scenario.requestCount; i++) {
+                    Request request = requests.next();
+                    writer.writeDouble(request.getTime());
+                    writer.writeInt(request.getOasisId());
+                    writer.writeInt(request.getGoodsCount());
+                    writer.writeDouble(request.getTimeout());
+                }
+            }
+            Files.move(temporary.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+    }
+}
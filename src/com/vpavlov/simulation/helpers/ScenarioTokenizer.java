@@ -0,0 +1,303 @@
+package com.vpavlov.simulation.helpers;
+
+import com.vpavlov.simulation.helpers.api.IScenarioReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming scenario tokenizer <br>
+ * Reads the input through a bounded buffer in one pass and skips (nested) comments using depth counter.
+ * Every comment works as a values separator. <br>
+ * Unlike the old parser, comment that is not closed until the end of the input hides the rest of the input.
+ *
+ * @author vpavlov
+ */
+public class ScenarioTokenizer implements IScenarioReader {
+
+    /**
+     * Input buffer size (in chars)
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Comment start symbol (U+1F42A) high surrogate
+     */
+    static final char COMMENT_START_HIGH = '\uD83D';
+
+    /**
+     * Comment start symbol (U+1F42A) low surrogate
+     */
+    static final char COMMENT_START_LOW = '\uDC2A';
+
+    /**
+     * Comment end symbol (U+1F3DC) high surrogate
+     */
+    static final char COMMENT_END_HIGH = '\uD83C';
+
+    /**
+     * Comment end symbol (U+1F3DC) low surrogate
+     */
+    static final char COMMENT_END_LOW = '\uDFDC';
+
+    /**
+     * Input to tokenize
+     */
+    private final Reader input;
+
+    /**
+     * Input buffer
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * Current position in the buffer
+     */
+    private int position = 0;
+
+    /**
+     * Count of valid chars in the buffer
+     */
+    private int limit = 0;
+
+    /**
+     * If the end of the input has been reached
+     */
+    private boolean endOfInput = false;
+
+    /**
+     * Current comments nesting depth
+     */
+    private int depth = 0;
+
+    /**
+     * Reusable builder for the token in progress
+     */
+    private final StringBuilder token = new StringBuilder();
+
+    /**
+     * Next token (null if it has not been read yet or there are no more tokens)
+     */
+    private String nextToken = null;
+
+    /**
+     * If the input may still be written while it is read
+     */
+    private final boolean growing;
+
+    /**
+     * Constructor
+     *
+     * @param input input to tokenize
+     */
+    public ScenarioTokenizer(Reader input) {
+        this(input, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param input   input to tokenize
+     * @param growing if the input may still be written while it is read
+     */
+    public ScenarioTokenizer(Reader input, boolean growing) {
+        this.input = input;
+        this.growing = growing;
+    }
+
+    /**
+     * Checks if the char is a white symbol (the same set as regex {@code \s})
+     *
+     * @param c char to check
+     * @return true if the char is a white symbol, else false
+     */
+    static boolean isWhiteSymbol(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Ensures that the buffer contains at least specified amount of unread chars (if the input is long enough)
+     *
+     * @param count amount of chars
+     * @return true if the buffer contains enough chars, else false
+     */
+    private boolean ensure(int count) {
+        while (limit - position < count) {
+            if (endOfInput) {
+                return false;
+            }
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            try {
+                int read = input.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    limit += read;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method <br>
+     * Moves the input data that can be read without waiting into the buffer
+     */
+    private void readAvailable() {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        try {
+            while (!endOfInput && limit < buffer.length && input.ready()) {
+                int read = input.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    limit += read;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Checks if the buffer contains enough complete tokens (the buffer is not changed)
+     *
+     * @param count count of tokens
+     * @return true if there are at least count tokens followed by a separator, else false
+     */
+    private boolean hasCompleteTokens(int count) {
+        int commentDepth = depth;
+        boolean inToken = false;
+        int found = 0;
+        for (int i = position; i < limit && found < count; i++) {
+            char c = buffer[i];
+            if ((c == COMMENT_START_HIGH || c == COMMENT_END_HIGH) && i + 1 == limit) {
+                //the pair may be split by the end of the buffered data
+                break;
+            }
+            if (c == COMMENT_START_HIGH && buffer[i + 1] == COMMENT_START_LOW) {
+                ++i;
+                ++commentDepth;
+                if (inToken) {
+                    inToken = false;
+                    ++found;
+                }
+            } else if (commentDepth > 0 && c == COMMENT_END_HIGH && buffer[i + 1] == COMMENT_END_LOW) {
+                ++i;
+                --commentDepth;
+            } else if (commentDepth == 0) {
+                if (isWhiteSymbol(c)) {
+                    if (inToken) {
+                        inToken = false;
+                        ++found;
+                    }
+                } else {
+                    inToken = true;
+                }
+            }
+        }
+        return found >= count;
+    }
+
+    /**
+     * Checks if the buffer contains specified surrogate pair at the current position
+     *
+     * @param high high surrogate
+     * @param low  low surrogate
+     * @return true if the pair is at the current position, else false
+     */
+    private boolean isPair(char high, char low) {
+        return buffer[position] == high && ensure(2) && buffer[position + 1] == low;
+    }
+
+    /**
+     * Reads the next token from the input
+     *
+     * @return next token or null if there are no more tokens
+     */
+    private String readToken() {
+        token.setLength(0);
+        while (ensure(1)) {
+            char c = buffer[position];
+            if (isPair(COMMENT_START_HIGH, COMMENT_START_LOW)) {
+                position += 2;
+                ++depth;
+                if (!token.isEmpty()) {
+                    break;
+                }
+            } else if (depth > 0 && isPair(COMMENT_END_HIGH, COMMENT_END_LOW)) {
+                position += 2;
+                --depth;
+            } else {
+                ++position;
+                if (depth > 0) {
+                    continue;
+                }
+                if (isWhiteSymbol(c)) {
+                    if (!token.isEmpty()) {
+                        break;
+                    }
+                } else {
+                    token.append(c);
+                }
+            }
+        }
+        return token.isEmpty() ? null : token.toString();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextToken == null) {
+            nextToken = readToken();
+        }
+        return nextToken != null;
+    }
+
+    @Override
+    public boolean isGrowing() {
+        return growing;
+    }
+
+    @Override
+    public boolean isBuffered(int count) {
+        if (nextToken != null) {
+            --count;
+        }
+        if (count <= 0 || endOfInput || hasCompleteTokens(count)) {
+            return true;
+        }
+        readAvailable();
+        return endOfInput || limit == buffer.length || hasCompleteTokens(count);
+    }
+
+    @Override
+    public String next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("Scenario has no next value");
+        }
+        String result = nextToken;
+        nextToken = null;
+        return result;
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.vpavlov.simulation.helpers.api;
+
+import com.vpavlov.simulation.model.Request;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Source of the simulation requests <br>
+ * Requests are provided lazily in the input order (usually sorted by arrival time)
+ *
+ * @author vpavlov
+ */
+public interface IRequestSource {
+
+    /**
+     * If the source has next request
+     *
+     * @return true if it has, else false
+     */
+    boolean hasNext();
+
+    /**
+     * Checks if the next request can be read without waiting for more input <br>
+     * Sources of complete inputs never wait, only sources of growing inputs need to override this method
+     *
+     * @return true if the next request (or the end of the source) is already available, else false
+     */
+    default boolean isBuffered() {
+        return true;
+    }
+
+    /**
+     * Checks if the requests may still be written while they are read (the followed file) <br>
+     * Requests of growing sources can not be read ahead to restore their order
+     *
+     * @return true if the source is growing, else false
+     */
+    default boolean isGrowing() {
+        return false;
+    }
+
+    /**
+     * Get next request
+     *
+     * @return next request
+     * @throws NoSuchElementException if there is no next request
+     */
+    Request next() throws NoSuchElementException;
+}
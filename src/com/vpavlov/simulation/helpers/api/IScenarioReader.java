@@ -0,0 +1,76 @@
+package com.vpavlov.simulation.helpers.api;
+
+import java.io.Closeable;
+import java.util.NoSuchElementException;
+
+/**
+ * Scenario reader interface <br>
+ * Provides values of the scenario file one by one (comments and white symbols are skipped)
+ *
+ * @author vpavlov
+ */
+public interface IScenarioReader extends Closeable {
+
+    /**
+     * If the scenario has next value
+     *
+     * @return true if it has, else false
+     */
+    boolean hasNext();
+
+    /**
+     * Checks if the next values can be read without waiting for more input <br>
+     * Readers of complete inputs never wait, only readers of growing inputs need to override this method
+     *
+     * @param count count of values to check
+     * @return true if the values (or the end of the input) are already available, else false
+     */
+    default boolean isBuffered(int count) {
+        return true;
+    }
+
+    /**
+     * Checks if the input may still be written while it is read (the followed file)
+     *
+     * @return true if the input is growing, else false
+     */
+    default boolean isGrowing() {
+        return false;
+    }
+
+    /**
+     * Get next value as a string
+     *
+     * @return next value
+     * @throws NoSuchElementException if there is no next value
+     */
+    String next() throws NoSuchElementException;
+
+    /**
+     * Get next value as an integer
+     *
+     * @return next value
+     * @throws NoSuchElementException if there is no next value
+     * @throws NumberFormatException  if the value is not an integer
+     */
+    default int nextInt() throws NoSuchElementException, NumberFormatException {
+        return Integer.parseInt(next());
+    }
+
+    /**
+     * Get next value as a double
+     *
+     * @return next value
+     * @throws NoSuchElementException if there is no next value
+     * @throws NumberFormatException  if the value is not a number
+     */
+    default double nextDouble() throws NoSuchElementException, NumberFormatException {
+        return Double.parseDouble(next());
+    }
+
+    /**
+     * Closes the scenario source
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,327 @@
+package com.vpavlov.simulation.model;
+
+/**
+ * Idle camels of one type in the warehouse <br>
+ * Camels are kept in a treap ordered by speed (then by handle), every node knows the maximal camel distance in its subtree.
+ * The slowest camel with enough speed and distance is found in O(log n) expected time,
+ * so faster camels stay in the warehouse for more urgent requests.
+ * Tree links are stored in the camel store (a camel is in at most one pool),
+ * treap priorities are derived from camel handles, so the shape of the tree is deterministic. <br>
+ * The pool also counts virtual camels: camels that have been generated, but their attributes have not been drawn yet.
+ *
+ * @author vpavlov
+ */
+public class CamelPool {
+
+    /**
+     * Store of the camels
+     */
+    private final CamelStore store;
+
+    /**
+     * Treap root (-1 if the pool is empty)
+     */
+    private int root = -1;
+
+    /**
+     * Count of camels in the pool
+     */
+    private int size = 0;
+
+    /**
+     * Count of virtual camels in the pool
+     */
+    private long virtualCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param store store of the camels
+     */
+    public CamelPool(CamelStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Camels count getter
+     *
+     * @return count of materialized camels in the pool
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Virtual camels count getter
+     *
+     * @return count of camels that have not been materialized yet
+     */
+    public long getVirtualCount() {
+        return virtualCount;
+    }
+
+    /**
+     * Adds virtual camels to the pool
+     *
+     * @param count count of camels to add
+     */
+    public void addVirtual(long count) {
+        virtualCount += count;
+    }
+
+    /**
+     * Replaces one virtual camel by the materialized one
+     *
+     * @param camel handle of the materialized camel (must not be in any pool)
+     * @throws IllegalStateException if there are no virtual camels in the pool
+     */
+    public void materialize(int camel) throws IllegalStateException {
+        if (virtualCount == 0) {
+            throw new IllegalStateException("There are no virtual camels in the pool");
+        }
+        --virtualCount;
+        add(camel);
+    }
+
+    /**
+     * Adds the camel to the pool
+     *
+     * @param camel camel handle (must not be in any pool)
+     */
+    public void add(int camel) {
+        store.left[camel] = -1;
+        store.right[camel] = -1;
+        store.maxDistance[camel] = store.getDistance(camel);
+        root = insert(root, camel);
+        ++size;
+    }
+
+    /**
+     * Removes the camel from the pool
+     *
+     * @param camel camel handle
+     * @return true if the camel has been in the pool, else false
+     */
+    public boolean remove(int camel) {
+        int before = size;
+        root = delete(root, camel);
+        return size != before;
+    }
+
+    /**
+     * Finds the slowest camel that fits the requirements
+     *
+     * @param minSpeed    minimal camel speed
+     * @param minDistance minimal camel distance
+     * @return fitting camel handle (it stays in the pool), -1 if there is no such camel
+     */
+    public int findFit(double minSpeed, double minDistance) {
+        return findFit(root, minSpeed, minDistance);
+    }
+
+    /**
+     * Camels getter
+     *
+     * @return handles of camels in the pool ordered by speed
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        collect(root, result, 0);
+        return result;
+    }
+
+    /**
+     * Helper method <br>
+     * Computes the treap priority of the camel (greater priority is closer to the root)
+     *
+     * @param camel camel handle
+     * @return priority
+     */
+    private static int priority(int camel) {
+        int h = camel * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Helper method <br>
+     * Compares camels by speed, then by handle
+     *
+     * @param first  first camel
+     * @param second second camel
+     * @return negative if the first camel goes before the second one, positive if after, 0 for the same camel
+     */
+    private int compare(int first, int second) {
+        int result = Double.compare(store.getSpeed(first), store.getSpeed(second));
+        return result != 0 ? result : Integer.compare(first, second);
+    }
+
+    /**
+     * Helper method <br>
+     * Recomputes the maximal distance of the node from its children
+     *
+     * @param node node to update
+     */
+    private void update(int node) {
+        double max = store.getDistance(node);
+        int left = store.left[node];
+        int right = store.right[node];
+        if (left >= 0 && store.maxDistance[left] > max) {
+            max = store.maxDistance[left];
+        }
+        if (right >= 0 && store.maxDistance[right] > max) {
+            max = store.maxDistance[right];
+        }
+        store.maxDistance[node] = max;
+    }
+
+    /**
+     * Helper method <br>
+     * Inserts the node into the subtree
+     *
+     * @param node  subtree root
+     * @param added node to insert
+     * @return new subtree root
+     */
+    private int insert(int node, int added) {
+        if (node < 0) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            store.left[node] = insert(store.left[node], added);
+            if (priority(store.left[node]) > priority(node)) {
+                node = rotateRight(node);
+            }
+        } else {
+            store.right[node] = insert(store.right[node], added);
+            if (priority(store.right[node]) > priority(node)) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Helper method <br>
+     * Deletes the camel from the subtree (decreases the size if the camel is found)
+     *
+     * @param node  subtree root
+     * @param camel camel to delete
+     * @return new subtree root
+     */
+    private int delete(int node, int camel) {
+        if (node < 0) {
+            return -1;
+        }
+        int result = compare(camel, node);
+        if (result < 0) {
+            store.left[node] = delete(store.left[node], camel);
+        } else if (result > 0) {
+            store.right[node] = delete(store.right[node], camel);
+        } else {
+            --size;
+            return merge(store.left[node], store.right[node]);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Helper method <br>
+     * Merges two subtrees (all camels of the first one go before the camels of the second one)
+     *
+     * @param first  first subtree
+     * @param second second subtree
+     * @return merged subtree root
+     */
+    private int merge(int first, int second) {
+        if (first < 0) {
+            return second;
+        }
+        if (second < 0) {
+            return first;
+        }
+        if (priority(first) > priority(second)) {
+            store.right[first] = merge(store.right[first], second);
+            update(first);
+            return first;
+        }
+        store.left[second] = merge(first, store.left[second]);
+        update(second);
+        return second;
+    }
+
+    /**
+     * Helper method <br>
+     * Finds the first node (by speed) that fits the requirements
+     *
+     * @param node        subtree root
+     * @param minSpeed    minimal camel speed
+     * @param minDistance minimal camel distance
+     * @return fitting node, -1 if there is no such node in the subtree
+     */
+    private int findFit(int node, double minSpeed, double minDistance) {
+        if (node < 0 || store.maxDistance[node] < minDistance) {
+            return -1;
+        }
+        if (store.getSpeed(node) < minSpeed) {
+            return findFit(store.right[node], minSpeed, minDistance);
+        }
+        int found = findFit(store.left[node], minSpeed, minDistance);
+        if (found >= 0) {
+            return found;
+        }
+        if (store.getDistance(node) >= minDistance) {
+            return node;
+        }
+        return findFit(store.right[node], minSpeed, minDistance);
+    }
+
+    /**
+     * Helper method <br>
+     * Collects camels of the subtree in order
+     *
+     * @param node   subtree root
+     * @param result array to fill
+     * @param index  index of the first free position in the array
+     * @return index of the first free position after the subtree
+     */
+    private int collect(int node, int[] result, int index) {
+        if (node < 0) {
+            return index;
+        }
+        index = collect(store.left[node], result, index);
+        result[index++] = node;
+        return collect(store.right[node], result, index);
+    }
+
+    /**
+     * Helper method <br>
+     * Rotates the subtree to the right (the left child becomes the root)
+     *
+     * @param node subtree root
+     * @return new subtree root
+     */
+    private int rotateRight(int node) {
+        int left = store.left[node];
+        store.left[node] = store.right[left];
+        store.right[left] = node;
+        update(node);
+        return left;
+    }
+
+    /**
+     * Helper method <br>
+     * Rotates the subtree to the left (the right child becomes the root)
+     *
+     * @param node subtree root
+     * @return new subtree root
+     */
+    private int rotateLeft(int node) {
+        int right = store.right[node];
+        store.right[node] = store.left[right];
+        store.left[right] = node;
+        update(node);
+        return right;
+    }
+}
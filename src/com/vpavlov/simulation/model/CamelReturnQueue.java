@@ -0,0 +1,122 @@
+package com.vpavlov.simulation.model;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of camel handles ordered by return time (ties by handle)
+ *
+ * @author vpavlov
+ */
+public class CamelReturnQueue {
+
+    /**
+     * Initial capacity of the heap
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Store of the camels
+     */
+    private final CamelStore store;
+
+    /**
+     * Heap of camel handles
+     */
+    private int[] heap = new int[INITIAL_CAPACITY];
+
+    /**
+     * Count of camels in the heap
+     */
+    private int size = 0;
+
+    /**
+     * Constructor
+     *
+     * @param store store of the camels
+     */
+    public CamelReturnQueue(CamelStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Adds the camel to the queue (its return time must be set and must not change while it is in the queue)
+     *
+     * @param camel camel handle
+     */
+    public void add(int camel) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBefore(camel, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = camel;
+    }
+
+    /**
+     * Gets the first camel to return
+     *
+     * @return camel handle, -1 if the queue is empty
+     */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * Removes the first camel to return
+     *
+     * @return camel handle, -1 if the queue is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int result = heap[0];
+        int camel = heap[--size];
+        int index = 0;
+        for (; ; ) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && isBefore(heap[child + 1], heap[child])) {
+                ++child;
+            }
+            if (!isBefore(heap[child], camel)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = camel;
+        return result;
+    }
+
+    /**
+     * Camels count getter
+     *
+     * @return count of camels in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Helper method <br>
+     * Compares camels by return time, then by handle
+     *
+     * @param first  first camel
+     * @param second second camel
+     * @return true if the first camel returns before the second one, else false
+     */
+    private boolean isBefore(int first, int second) {
+        int result = Double.compare(store.getReturnTime(first), store.getReturnTime(second));
+        return result < 0 || (result == 0 && first < second);
+    }
+}
@@ -0,0 +1,236 @@
+package com.vpavlov.simulation.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Columnar store of all simulation camels <br>
+ * Camel attributes are kept in primitive arrays and camels are addressed by int handles,
+ * the handle of the camel is also its id. Camels are never removed from the store.
+ *
+ * @author vpavlov
+ */
+public class CamelStore {
+
+    /**
+     * Initial capacity of the store
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Known camel types (type index is the position in the list)
+     */
+    private final List<CamelType> types = new ArrayList<>();
+
+    /**
+     * Count of camels in the store
+     */
+    private int size = 0;
+
+    /**
+     * Camels speeds
+     */
+    private double[] speed = new double[INITIAL_CAPACITY];
+
+    /**
+     * Camels distances (maximal stamina)
+     */
+    private double[] distance = new double[INITIAL_CAPACITY];
+
+    /**
+     * Camels current stamina
+     */
+    private double[] stamina = new double[INITIAL_CAPACITY];
+
+    /**
+     * Camels return times (-1 if the camel has not been sent yet)
+     */
+    private double[] returnTime = new double[INITIAL_CAPACITY];
+
+    /**
+     * Camels types indexes
+     */
+    private int[] typeIndex = new int[INITIAL_CAPACITY];
+
+    /**
+     * Camels home warehouses ids
+     */
+    private int[] warehouseId = new int[INITIAL_CAPACITY];
+
+    /**
+     * Left child of the camel in its warehouse pool (managed by the pool)
+     */
+    int[] left = new int[INITIAL_CAPACITY];
+
+    /**
+     * Right child of the camel in its warehouse pool (managed by the pool)
+     */
+    int[] right = new int[INITIAL_CAPACITY];
+
+    /**
+     * Maximal camel distance in the pool subtree of the camel (managed by the pool)
+     */
+    double[] maxDistance = new double[INITIAL_CAPACITY];
+
+    /**
+     * Creates a new camel with random speed and distance
+     *
+     * @param type        camel type
+     * @param warehouseId home warehouse id
+     * @param random      random generator of the camel attributes
+     * @return handle of the created camel
+     */
+    public int create(CamelType type, int warehouseId, Random random) {
+        if (size == speed.length) {
+            grow();
+        }
+        int camel = size++;
+        //speed random generating (Continuous uniform distribution)
+        speed[camel] = type.getMinSpeed() + random.nextDouble() * (type.getMaxSpeed() - type.getMinSpeed());
+        //distance random generating (Normal distribution)
+        distance[camel] = random.nextGaussian() * type.getDistanceDeviation() + type.getDistanceMean();
+        stamina[camel] = distance[camel];
+        returnTime[camel] = -1;
+        typeIndex[camel] = getTypeIndex(type);
+        this.warehouseId[camel] = warehouseId;
+        left[camel] = -1;
+        right[camel] = -1;
+        return camel;
+    }
+
+    /**
+     * Helper method <br>
+     * Finds the index of the camel type (registers the type if it is not known)
+     *
+     * @param type camel type
+     * @return type index
+     */
+    private int getTypeIndex(CamelType type) {
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).equals(type)) {
+                return i;
+            }
+        }
+        types.add(type);
+        return types.size() - 1;
+    }
+
+    /**
+     * Helper method <br>
+     * Doubles the capacity of all columns
+     */
+    private void grow() {
+        int capacity = speed.length * 2;
+        speed = Arrays.copyOf(speed, capacity);
+        distance = Arrays.copyOf(distance, capacity);
+        stamina = Arrays.copyOf(stamina, capacity);
+        returnTime = Arrays.copyOf(returnTime, capacity);
+        typeIndex = Arrays.copyOf(typeIndex, capacity);
+        warehouseId = Arrays.copyOf(warehouseId, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        maxDistance = Arrays.copyOf(maxDistance, capacity);
+    }
+
+    /**
+     * Camels count getter
+     *
+     * @return count of created camels
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Camel type getter
+     *
+     * @param camel camel handle
+     * @return camel type
+     */
+    public CamelType getType(int camel) {
+        return types.get(typeIndex[camel]);
+    }
+
+    /**
+     * Camel speed getter
+     *
+     * @param camel camel handle
+     * @return camel speed
+     */
+    public double getSpeed(int camel) {
+        return speed[camel];
+    }
+
+    /**
+     * Camel distance getter
+     *
+     * @param camel camel handle
+     * @return distance the camel can pass without drinking
+     */
+    public double getDistance(int camel) {
+        return distance[camel];
+    }
+
+    /**
+     * Camel stamina getter
+     *
+     * @param camel camel handle
+     * @return current camel stamina
+     */
+    public double getStamina(int camel) {
+        return stamina[camel];
+    }
+
+    /**
+     * Camel home warehouse getter
+     *
+     * @param camel camel handle
+     * @return home warehouse id
+     */
+    public int getWarehouseId(int camel) {
+        return warehouseId[camel];
+    }
+
+    /**
+     * Camel return time getter
+     *
+     * @param camel camel handle
+     * @return time of the camel return to the home warehouse
+     */
+    public double getReturnTime(int camel) {
+        return returnTime[camel];
+    }
+
+    /**
+     * Camel return time setter
+     *
+     * @param camel      camel handle
+     * @param returnTime time of the camel return to the home warehouse
+     */
+    public void setReturnTime(int camel, double returnTime) {
+        this.returnTime[camel] = returnTime;
+    }
+
+    /**
+     * Restores the camel stamina
+     *
+     * @param camel camel handle
+     * @return drink time
+     */
+    public double drink(int camel) {
+        stamina[camel] = distance[camel];
+        return getType(camel).getDrinkTime();
+    }
+
+    /**
+     * Removes the stamina of the camel
+     *
+     * @param camel    camel handle
+     * @param toRemove stamina to remove
+     */
+    public void removeStamina(int camel, double toRemove) {
+        stamina[camel] -= toRemove;
+    }
+}
@@ -2,8 +2,9 @@ package com.vpavlov.simulation.model;
 
 import com.vpavlov.map.Path;
 import com.vpavlov.map.api.IOasisPathsGetter;
-import com.vpavlov.map.GraphEntity;
+import com.vpavlov.map.api.IPathCache;
 import com.vpavlov.map.MapGraph;
+import com.vpavlov.map.SearchMode;
 import com.vpavlov.simulation.events.DrinkPlace;
 import com.vpavlov.simulation.events.EventLogger;
 import com.vpavlov.simulation.exceptions.NoGoodsException;
@@ -11,10 +12,14 @@ import com.vpavlov.console.ConsoleColor;
 import com.vpavlov.console.LogType;
 import com.vpavlov.console.Logger;
 import com.vpavlov.simulation.helpers.*;
+import com.vpavlov.simulation.helpers.api.IRequestSource;
 import com.vpavlov.map.Point;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Class represents simulation
@@ -28,6 +33,11 @@ public class Simulation {
      */
     private final List<Warehouse> warehouses = new ArrayList<>();
 
+    /**
+     * Warehouses by priority
+     */
+    private final WarehouseRanking warehouseRanking = new WarehouseRanking();
+
     /**
      * Queue of warehouse supplies by next supply time
      */
@@ -39,9 +49,14 @@ public class Simulation {
     private final List<Oasis> oases = new ArrayList<>();
 
     /**
-     * List of camels to return to warehouses
+     * Store of all camels
+     */
+    private final CamelStore camels = new CamelStore();
+
+    /**
+     * Queue of camels to return to warehouses
      */
-    private final PriorityQueue<Camel> camelsToReturn = new PriorityQueue<>();
+    private final CamelReturnQueue camelsToReturn = new CamelReturnQueue(camels);
 
     /**
      * List of camels
@@ -49,10 +64,25 @@ public class Simulation {
     private final PriorityQueue<CamelType> camelTypes = new PriorityQueue<>();
 
     /**
-     * List of requests
+     * Queue of the actual and postponed requests
      */
     private final PriorityQueue<Request> requests = new PriorityQueue<>();
 
+    /**
+     * Source of the not yet arrived requests
+     */
+    private final IRequestSource requestSource;
+
+    /**
+     * Request read from the source, but not added to the queue yet
+     */
+    private Request nextRequest = null;
+
+    /**
+     * Arrival time of the last request read from the source
+     */
+    private double lastArrivalTime = Double.NEGATIVE_INFINITY;
+
     /**
      * Map of warehouses and oases
      */
@@ -87,16 +117,16 @@ public class Simulation {
     /**
      * Constructor
      *
-     * @param params parameters of the simulation
-     * @param logger logger
+     * @param scenario parsed simulation scenario
+     * @param requests source of the simulation requests
+     * @param logger   logger
      */
-    public Simulation(String[] params, Logger logger) {
+    public Simulation(Scenario scenario, IRequestSource requests, Logger logger) {
         logger.log("Simulation building..", LogType.DEBUG);
 
         this.logger = logger;
         eventLogger = new EventLogger(logger);
-        int i = 0;
-        int warehouseCount = Integer.parseInt(params[i++]);
+        int warehouseCount = scenario.warehouseX.length;
         List<Point> points = new ArrayList<>();
 
         logger.log("Adding warehouses", LogType.DEBUG);
@@ -104,26 +134,28 @@ public class Simulation {
         for (int j = 0; j < warehouseCount; ++j) {
             Warehouse w = new Warehouse(
                     j,
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++]),
-                    Integer.parseInt(params[i++]),
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++])
+                    scenario.warehouseX[j],
+                    scenario.warehouseY[j],
+                    scenario.warehouseSupplyAmount[j],
+                    scenario.warehouseSupplyTimeout[j],
+                    scenario.warehouseLoadingTime[j],
+                    camels
             );
             points.add(w.getLocation());
             warehouses.add(w);
+            warehouseRanking.add(w);
             warehouseSupplies.add(new WarehouseSupply(w));
         }
 
         logger.log("Warehouses has been added", LogType.DEBUG);
         logger.log("Adding oases", LogType.DEBUG);
 
-        int oasesCount = Integer.parseInt(params[i++]);
+        int oasesCount = scenario.oasisX.length;
         for (int j = 0; j < oasesCount; ++j) {
             Oasis o = new Oasis(
                     j + warehouseCount,
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++])
+                    scenario.oasisX[j],
+                    scenario.oasisY[j]
             );
             points.add(o.getLocation());
             oases.add(o);
@@ -131,47 +163,39 @@ public class Simulation {
         logger.log("Oases has been added", LogType.DEBUG);
         logger.log("Adding paths", LogType.DEBUG);
 
-        map = new MapGraph(points, camelTypes, warehouses);
-        this.roadsCount = Integer.parseInt(params[i++]);
-        for (int j = 0; j < this.roadsCount; ++j) {
-            int p1 = Integer.parseInt(params[i++]) - 1;
-            int p2 = Integer.parseInt(params[i++]) - 1;
-            map.addBidirectionalEdge(p1, p2);
+        map = new MapGraph(points, camelTypes, warehouseRanking);
+        this.roadsCount = scenario.roadFrom.length;
+        if (scenario.adjacency != null) {
+            //adjacency restored from the snapshot
+            map.setAdjacency(scenario.adjacency);
+        } else {
+            for (int j = 0; j < this.roadsCount; ++j) {
+                map.addBidirectionalEdge(scenario.roadFrom[j], scenario.roadTo[j]);
+            }
+            map.buildAdjacency();
         }
 
         logger.log("Paths has been added", LogType.DEBUG);
         logger.log("Adding camel types", LogType.DEBUG);
 
-        int camelsCount = Integer.parseInt(params[i++]);
+        int camelsCount = scenario.camelName.length;
 
         for (int j = 0; j < camelsCount; ++j) {
             CamelType c = new CamelType(
-                    params[i++],
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++]),
-                    Double.parseDouble(params[i++]),
-                    Integer.parseInt(params[i++]),
-                    Double.parseDouble(params[i++])
+                    scenario.camelName[j],
+                    scenario.camelMinSpeed[j],
+                    scenario.camelMaxSpeed[j],
+                    scenario.camelMinDistance[j],
+                    scenario.camelMaxDistance[j],
+                    scenario.camelDrinkTime[j],
+                    scenario.camelMaxLoad[j],
+                    scenario.camelProportion[j]
             );
             camelTypes.add(c);
         }
 
         logger.log("Camel types has been added", LogType.DEBUG);
-        logger.log("Adding requests", LogType.DEBUG);
-
-        int requestsCount = Integer.parseInt(params[i++]);
-        for (int j = 0; j < requestsCount; j++) {
-            Request r = new Request(
-                    Double.parseDouble(params[i++]),
-                    Integer.parseInt(params[i++]),
-                    Integer.parseInt(params[i++]),
-                    Double.parseDouble(params[i++])
-            );
-            requests.add(r);
-        }
-        logger.log("Request has been added", LogType.DEBUG);
+        this.requestSource = requests;
 
         logger.log("Simulation has been built", LogType.DEBUG);
     }
@@ -213,21 +237,9 @@ public class Simulation {
      */
     private double computePathForCamelType(Warehouse w, Path path, CamelType type, int goods, double timeout) {
         //System.out.println("[DEBUG] computePathForCamelType");
-        List<Point> points = path.getPoints();
-        double stamina = type.getEffectiveDistance();
-        double transitionDistance;
         double time = w.getLoadingTime() * goods * 2;         //uploading and unloading
         double minPossibleSpeed;
-        for (int i = 0; i < points.size() - 1; i++) {
-            Point p1 = points.get(i);
-            Point p2 = points.get(i + 1);
-            transitionDistance = Point.getDistance(p1, p2);
-            if (stamina < transitionDistance) {
-                time += type.getDrinkTime();
-                stamina = type.getEffectiveDistance();
-            }
-            stamina -= transitionDistance;
-        }
+        time += path.getDrinkOverhead(type);
         if (Double.compare(timeout, time) <= 0) {
             return Double.POSITIVE_INFINITY;
         }
@@ -313,16 +325,13 @@ public class Simulation {
      */
     private void returnCamelPath(PathCamel pathCamel, double start) {
         // System.out.println("[DEBUG] returnCamelPath");
-        Camel camel = pathCamel.camel();
+        int camel = pathCamel.camel();
         Path path = pathCamel.path();
-        List<Point> points = path.getPoints();
         double time = start;
-        for (int i = points.size() - 1; i > 0; --i) {
-            Point p1 = points.get(i);
-            Point p2 = points.get(i - 1);
-            time = pointsTransition(time, path.getOasisId(), p1, p2, camel);
+        for (int i = path.getVertexCount() - 1; i > 0; --i) {
+            time = pointsTransition(time, path.getOasisId(), path.getVertex(i), path.getSegmentLength(i - 1), camel);
         }
-        camel.setReturnTime(time);
+        camels.setReturnTime(camel, time);
         camelsToReturn.add(camel);
     }
 
@@ -338,31 +347,28 @@ public class Simulation {
      */
     private int computePathForCamel(PathCamel pathCamel, int goods, double start, double timeout) throws NoGoodsException {
         //System.out.println("[DEBUG] computePathForCamel");
-        Camel camel = pathCamel.camel();
+        int camel = pathCamel.camel();
         Path path = pathCamel.path();
         Warehouse warehouse = warehouses.get(path.getWarehouseId());
-        List<Point> points = path.getPoints();
         double time = start;
         double loadingTime = warehouse.getLoadingTime();
-        int maxLoad = camel.getType().getMaxLoad();
+        int maxLoad = camels.getType(camel).getMaxLoad();
         int prepareGoods = Math.min(goods, maxLoad);
         double prepareTime = prepareGoods * loadingTime;
 
         warehouse.removeGoods(prepareGoods);
 
         //preparing camel
-        eventLogger.addCamelLoadEvent(time, camel.getId(), warehouse.getId(), prepareGoods, prepareTime);
+        eventLogger.addCamelLoadEvent(time, camel, warehouse.getId(), prepareGoods, prepareTime);
 
         time += prepareTime;
 
         //road
-        for (int i = 0; i < points.size() - 1; i++) {
-            Point p1 = points.get(i);
-            Point p2 = points.get(i + 1);
-            time = pointsTransition(time, path.getWarehouseId(), p1, p2, camel);
+        for (int i = 0; i < path.getVertexCount() - 1; i++) {
+            time = pointsTransition(time, path.getWarehouseId(), path.getVertex(i), path.getSegmentLength(i), camel);
         }
 
-        eventLogger.addCamelArriveEvent(time, camel.getId(), path.getOasisId(), prepareGoods, prepareTime, timeout);
+        eventLogger.addCamelArriveEvent(time, camel, path.getOasisId(), prepareGoods, prepareTime, timeout);
 
         returnCamelPath(pathCamel, time);
         return prepareGoods;
@@ -371,33 +377,33 @@ public class Simulation {
     /**
      * Calculate camel path between two points
      *
-     * @param time    current path time
-     * @param startId path start point
-     * @param p1      first point
-     * @param p2      second point
-     * @param camel   camel on the path
+     * @param time               current path time
+     * @param startId            path start point
+     * @param from               id of the point the transition starts at
+     * @param transitionDistance distance to the next point
+     * @param camel              handle of the camel on the path
      * @return transition time
      */
-    private double pointsTransition(double time, int startId, Point p1, Point p2, Camel camel) {
-        double transitionDistance = Point.getDistance(p1, p2);
-        double drinkTime = camel.getType().getDrinkTime();
-        if (Double.compare(camel.getStamina(), transitionDistance) < 0) {
-            if (p1.id() < warehouses.size()) {
+    private double pointsTransition(double time, int startId, int from, double transitionDistance, int camel) {
+        CamelType type = camels.getType(camel);
+        double drinkTime = type.getDrinkTime();
+        if (Double.compare(camels.getStamina(camel), transitionDistance) < 0) {
+            if (from < warehouses.size()) {
                 //stopped in warehouse
-                eventLogger.addCamelDrinkEvent(DrinkPlace.WAREHOUSE, time, camel.getId(), p1.id(), camel.getType().getName(), drinkTime);
+                eventLogger.addCamelDrinkEvent(DrinkPlace.WAREHOUSE, time, camel, from, type.getName(), drinkTime);
             } else {
                 //stopped in oasis
-                eventLogger.addCamelDrinkEvent(DrinkPlace.OASIS, time, camel.getId(), p1.id(), camel.getType().getName(), drinkTime);
+                eventLogger.addCamelDrinkEvent(DrinkPlace.OASIS, time, camel, from, type.getName(), drinkTime);
             }
-            time += camel.drink();
+            time += camels.drink(camel);
         } else {
-            if (p1.id() != startId) {
+            if (from != startId) {
                 //transit
-                eventLogger.addCamelIgnoreEvent(time, camel.getId(), p1.id());
+                eventLogger.addCamelIgnoreEvent(time, camel, from);
             }
         }
-        camel.removeStamina(transitionDistance);
-        time += (transitionDistance / camel.getSpeed());
+        camels.removeStamina(camel, transitionDistance);
+        time += (transitionDistance / camels.getSpeed(camel));
         return time;
     }
 
@@ -414,23 +420,18 @@ public class Simulation {
         //System.out.println("[DEBUG] OasisId="+oasisId);
         IOasisPathsGetter pathsGetter = map.getPathsForOasis(oasisId);
         PathCamelType fitCamelType;
-        Camel camel;
-        Iterator<Camel> iterator;
+        int camel;
         Warehouse w;
         fitCamelType = getRequestFitCamelType(pathsGetter, request.getGoodsCount(), request.getTimeout());
         if (fitCamelType == null) {
             return null;
         }
         w = warehouses.get(fitCamelType.path().getWarehouseId());
-        iterator = w.getCamelsByType(fitCamelType.camelType()).iterator();
-        do {
-            if (iterator.hasNext()) {
-                camel = iterator.next();
-            } else {
-                camel = null;
-                iterator = w.generateCamels(fitCamelType.camelType(), camelTypes).iterator();
-            }
-        } while ((camel == null) || (camel.getSpeed() < fitCamelType.minSpeed()) || (camel.getDistance() < fitCamelType.path().getMaxTransitionDistance()));
+        camel = w.findCamel(fitCamelType.camelType(), fitCamelType.minSpeed(), fitCamelType.path().getMaxTransitionDistance());
+        while (camel < 0) {
+            w.generateCamels(fitCamelType.camelType(), camelTypes);
+            camel = w.findCamel(fitCamelType.camelType(), fitCamelType.minSpeed(), fitCamelType.path().getMaxTransitionDistance());
+        }
 
         w.removeCamel(camel);
 
@@ -479,12 +480,84 @@ public class Simulation {
         return compare >= 0;
     }
 
+    /**
+     * Sets the cache of warehouse --> oasis paths (must be called before the simulation starts)
+     *
+     * @param pathCache path cache to use
+     */
+    public void setPathCache(IPathCache pathCache) {
+        map.setPathCache(pathCache);
+    }
+
+    /**
+     * Sets the count of candidate warehouses evaluated first for every request (must be called before the simulation starts)
+     *
+     * @param candidateCount count of the nearest warehouses (0 - all warehouses are evaluated by priority)
+     */
+    public void setCandidateCount(int candidateCount) {
+        map.setCandidateCount(candidateCount);
+    }
+
+    /**
+     * Sets the point to point search variant (must be called before the simulation starts) <br>
+     * The variant is used only by candidate warehouses distances and paths that do not fit into the path cache
+     *
+     * @param searchMode search variant
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        map.setSearchMode(searchMode);
+    }
+
+    /**
+     * Switches A* heuristic to landmarks (must be called before the simulation starts) <br>
+     * Landmarks speed up only the point to point searches (candidate warehouses and paths that do not fit into the path cache)
+     *
+     * @param count count of landmarks
+     */
+    public void useLandmarks(int count) {
+        long start = System.currentTimeMillis();
+        map.useLandmarks(count);
+        logger.log(String.format("Landmarks have been selected in %f seconds", (System.currentTimeMillis() - start) / 1000.0), LogType.INFO);
+    }
+
+    /**
+     * Switches path searches to contraction hierarchies (must be called before the simulation starts) <br>
+     * Hierarchies are read from the file or built and written into it if the file is missing or stale
+     * (if writing fails, the built hierarchies are used without saving)
+     *
+     * @param file hierarchies file
+     */
+    public void useContractionHierarchies(File file) {
+        long start = System.currentTimeMillis();
+        try {
+            if (map.useContractionHierarchies(file)) {
+                logger.log("Contraction hierarchies have been loaded from " + file, LogType.INFO);
+            } else {
+                logger.log(String.format("Contraction hierarchies have been built in %f seconds and saved to %s", (System.currentTimeMillis() - start) / 1000.0, file), LogType.INFO);
+            }
+        } catch (IOException e) {
+            logger.log(String.format("Contraction hierarchies have been built in %f seconds, but could not be saved to %s: %s", (System.currentTimeMillis() - start) / 1000.0, file, e.getMessage()), LogType.WARNING);
+        }
+    }
+
+    /**
+     * Computes paths between all warehouses and oases before the simulation starts
+     *
+     * @param pool pool to run the path searches
+     */
+    public void warmUp(ForkJoinPool pool) {
+        logger.log("Warming up paths", LogType.DEBUG);
+        long start = System.currentTimeMillis();
+        long count = map.warmUp(pool);
+        logger.log(String.format("Paths have been warmed up in %f seconds. Cached paths queues: %d", (System.currentTimeMillis() - start) / 1000.0, count), LogType.INFO);
+    }
+
     /**
      * Starts the harpagon simulation
      */
     public void simulate() {
         double nextSupply;
-        while (!isCrashed && !requests.isEmpty()) {
+        while (!isCrashed && pullRequests()) {
             nextSupply = Double.POSITIVE_INFINITY;
             List<Request> actualRequests = getActualRequests();
             actualRequests.sort(Request::sortByTimeout);
@@ -523,6 +596,7 @@ public class Simulation {
         }
         countCamels();
         countCamelsByType();
+        countPathCache();
 
         simulationEnd();
     }
@@ -550,16 +624,16 @@ public class Simulation {
      * @param currentTime current simulation time
      */
     private void returnCamels(double currentTime) {
-        Camel camel;
+        int camel;
         for (; ; ) {
             camel = camelsToReturn.peek();
-            if (camel == null) {
+            if (camel < 0) {
                 break;
             }
-            if (camel.getReturnTime() <= currentTime) {
+            if (camels.getReturnTime(camel) <= currentTime) {
                 camelsToReturn.poll();
-                eventLogger.addCamelReturnEvent(camel.getReturnTime(), camel.getId(), camel.getWarehouseId());
-                warehouses.get(camel.getWarehouseId()).returnCamel(camel);
+                eventLogger.addCamelReturnEvent(camels.getReturnTime(camel), camel, camels.getWarehouseId(camel));
+                warehouses.get(camels.getWarehouseId(camel)).returnCamel(camel);
             } else {
                 break;
             }
@@ -578,11 +652,23 @@ public class Simulation {
         );
     }
 
+    /**
+     * Log path cache statistics
+     */
+    private void countPathCache() {
+        IPathCache pathCache = map.getPathCache();
+        logger.log(
+                String.format("Path cache: %d paths queues (%f MB estimated), hits: %d, misses: %d, evictions: %d",
+                        pathCache.size(), pathCache.getWeight() / 1e6, pathCache.getHits(), pathCache.getMisses(), pathCache.getEvictions()),
+                LogType.INFO
+        );
+    }
+
     /**
      * Count all generated camels in all warehouses
      */
     private void countCamels() {
-        int count = 0;
+        long count = 0;
         for (Warehouse w : warehouses) {
             count += w.getCamelsCount();
         }
@@ -611,6 +697,75 @@ public class Simulation {
         }
     }
 
+    /**
+     * Moves requests from the source to the queue <br>
+     * Only requests that arrive not later than the first request in the queue are moved,
+     * the source is waited for unless the first queued request is earlier than the last read one
+     * (requests with the same arrival time are never split). <br>
+     * If the input requests are not sorted by arrival time, the rest of the source is loaded into the queue
+     * and the requests are simulated in arrival order from then on. The followed input can not be read ahead,
+     * so unsorted requests of the followed input fail the simulation
+     *
+     * @return true if there are requests to process, else false
+     */
+    private boolean pullRequests() {
+        for (; ; ) {
+            if (nextRequest == null) {
+                if (!requestSource.isBuffered()) {
+                    Request first = requests.peek();
+                    if (first != null && first.getPostponeTime() < lastArrivalTime) {
+                        //requests that have not been written yet can not arrive before the first queued request
+                        break;
+                    }
+                    //next requests can not arrive earlier, so the events until now are final
+                    eventLogger.log(lastArrivalTime);
+                }
+                if (!requestSource.hasNext()) {
+                    break;
+                }
+                nextRequest = requestSource.next();
+                if (nextRequest.getTime() < lastArrivalTime) {
+                    if (requestSource.isGrowing()) {
+                        logger.log(
+                                String.format("Requests of the followed input are not sorted by arrival time (request at %f after request at %f), the input is still being written, so the requests can not be reordered",
+                                        nextRequest.getTime(), lastArrivalTime),
+                                LogType.ERROR
+                        );
+                        isCrashed = true;
+                        return false;
+                    }
+                    logger.log(
+                            String.format("Requests are not sorted by arrival time (request at %f after request at %f), remaining requests are loaded into the memory",
+                                    nextRequest.getTime(), lastArrivalTime),
+                            LogType.WARNING
+                    );
+                    loadRemainingRequests();
+                    continue;
+                }
+                lastArrivalTime = nextRequest.getTime();
+            }
+            Request first = requests.peek();
+            if (first != null && first.getPostponeTime() < nextRequest.getTime()) {
+                break;
+            }
+            requests.add(nextRequest);
+            nextRequest = null;
+        }
+        return !requests.isEmpty();
+    }
+
+    /**
+     * Helper method <br>
+     * Moves the read request and all requests left in the source to the queue
+     */
+    private void loadRemainingRequests() {
+        requests.add(nextRequest);
+        nextRequest = null;
+        while (requestSource.hasNext()) {
+            requests.add(requestSource.next());
+        }
+    }
+
     /**
      * Gets next requests that have the same arrive time
      *
@@ -653,13 +808,11 @@ public class Simulation {
         str.append(ConsoleColor.ANSI_GREEN).append("\n-------------------------------->>ROADS [").append(this.roadsCount).append("]<<--------------------------------\n\n").append(ConsoleColor.ANSI_RESET);
         str.append(ConsoleColor.ANSI_YELLOW).append("[i]<-->[j] {i,j} - indexes of oasis or path\n[0,S] - warehouses, [S+1, S+O] - oases\nS - number of warehouses, O - number of oases\n\n").append(ConsoleColor.ANSI_RESET);
         int road = 0;
-        List<GraphEntity> graph = map.getGraph();
-        for (int i = 0; i < graph.size(); i++) {
-            Set<Integer> neighbours = graph.get(i).neighbours;
-            if (neighbours != null) {
-                for (int j : neighbours) {
-                    str.append("[").append(++road).append("] ").append(i + 1).append("<-->").append(j + 1).append("\n");
-                }
+        int[] offsets = map.getOffsets();
+        int[] targets = map.getTargets();
+        for (int i = 0; i + 1 < offsets.length; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                str.append("[").append(++road).append("] ").append(i + 1).append("<-->").append(targets[e] + 1).append("\n");
             }
         }
 
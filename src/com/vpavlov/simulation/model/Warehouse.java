@@ -16,6 +16,11 @@ public class Warehouse implements Comparable<Warehouse> {
      */
     private static final int MAGIC_NUMBER = 2;
 
+    /**
+     * Base seed of the camels samplers (every warehouse adds its id)
+     */
+    private static final long SAMPLER_SEED = 0x5DEECE66DL;
+
     /**
      * This warehouse id
      */
@@ -27,9 +32,24 @@ public class Warehouse implements Comparable<Warehouse> {
     private final Point location;
 
     /**
-     * Camels for the path
+     * Store of all simulation camels
+     */
+    private final CamelStore camelStore;
+
+    /**
+     * Idle camels of the warehouse by type name
+     */
+    private final Map<String, CamelPool> camels = new HashMap<>();
+
+    /**
+     * Count of idle camels of all types (including virtual camels)
+     */
+    private long camelsCount = 0;
+
+    /**
+     * Deterministic sampler of the camels attributes (attributes are drawn when the camel is materialized)
      */
-    private final Set<Camel> camels = new HashSet<>();
+    private final Random sampler;
 
     /**
      * Current amount of goods {tc}
@@ -61,6 +81,21 @@ public class Warehouse implements Comparable<Warehouse> {
      */
     private double priority;
 
+    /**
+     * Ranking of the warehouse (null if the warehouse is not ranked)
+     */
+    private WarehouseRanking ranking = null;
+
+    /**
+     * Key of the warehouse position in the ranking (managed by the ranking)
+     */
+    double rankKey = 0;
+
+    /**
+     * Flag if the warehouse has moved in the ranking since the last iteration (managed by the ranking)
+     */
+    boolean rankMoved = false;
+
     /**
      * Constructor
      *
@@ -70,8 +105,9 @@ public class Warehouse implements Comparable<Warehouse> {
      * @param supplyAmount  supply amount
      * @param supplyTimeout supply timeout
      * @param loadingTime   loading time
+     * @param camelStore    store of all simulation camels
      */
-    public Warehouse(int id, double x, double y, int supplyAmount, double supplyTimeout, double loadingTime) {
+    public Warehouse(int id, double x, double y, int supplyAmount, double supplyTimeout, double loadingTime, CamelStore camelStore) {
         if (Double.compare(supplyTimeout, 0d) == 0) {
             if (supplyAmount == 0) {
                 this.nextSupply = Double.POSITIVE_INFINITY;
@@ -97,16 +133,42 @@ public class Warehouse implements Comparable<Warehouse> {
         this.supplyAmount = supplyAmount;
         this.supplyTimeout = supplyTimeout;
         this.loadingTime = loadingTime;
+        this.camelStore = camelStore;
+        this.sampler = new Random(SAMPLER_SEED + id);
 
 
         setPriority();
     }
 
     /**
-     * Sets warehouse priority according to loading time and goods amount
+     * Sets warehouse priority according to loading time and goods amount <br>
+     * Updates the warehouse position in the ranking if the priority has changed
      */
     private void setPriority() {
-        priority = goodsAmount / loadingTime;
+        double newPriority = goodsAmount / loadingTime;
+        if (Double.compare(newPriority, priority) == 0) {
+            return;
+        }
+        if (ranking != null) {
+            ranking.remove(this);
+        }
+        priority = newPriority;
+        if (ranking != null) {
+            ranking.reinsert(this);
+        }
+    }
+
+    /**
+     * Ranking setter
+     *
+     * @param ranking ranking of the warehouse
+     * @throws IllegalStateException if the warehouse is already ranked
+     */
+    void setRanking(WarehouseRanking ranking) throws IllegalStateException {
+        if (this.ranking != null) {
+            throw new IllegalStateException("Warehouse is already ranked");
+        }
+        this.ranking = ranking;
     }
 
     /**
@@ -150,8 +212,8 @@ public class Warehouse implements Comparable<Warehouse> {
      *
      * @return all types of camels count
      */
-    public int getCamelsCount() {
-        return camels.size();
+    public long getCamelsCount() {
+        return camelsCount;
     }
 
     /**
@@ -161,7 +223,8 @@ public class Warehouse implements Comparable<Warehouse> {
      * @return count of camels with specified type
      */
     public long getCamelsCount(CamelType type) {
-        return camels.stream().filter(c -> c.getType().equals(type)).count();
+        CamelPool pool = camels.get(type.getName());
+        return pool == null ? 0 : pool.size() + pool.getVirtualCount();
     }
 
     /**
@@ -187,76 +250,101 @@ public class Warehouse implements Comparable<Warehouse> {
 
     /**
      * Helper method <br>
-     * Generates given amount of camels with specified camelType
+     * Gets the pool of idle camels of the type (creates an empty pool if needed)
      *
-     * @param type   camelType of camels to generate
-     * @param amount amount of camels to generate
-     * @return set of generated camels
-     */
-    private Set<Camel> generateCamels(CamelType type, long amount) {
-        Set<Camel> result = new HashSet<>();
-        for (long i = 0; i < amount; i++) {
-            result.add(new Camel(type, this.id));
-        }
-        setPriority();
-        return result;
+     * @param type camel type
+     * @return pool of the type
+     */
+    private CamelPool getPool(CamelType type) {
+        return camels.computeIfAbsent(type.getName(), name -> new CamelPool(camelStore));
     }
 
     /**
      * Generate camels according to their proportion <br>
-     * Adds generated camels to the path
+     * Generated camels are virtual: they are only counted in the warehouse,
+     * their attributes are drawn when they are needed by {@link #findCamel(CamelType, double, double)}
      *
      * @param type  camelType of camels to return
      * @param types types of camels
-     * @return set of camels with specified camelType
+     * @return count of generated camels with specified camelType
      */
-    public List<Camel> generateCamels(CamelType type, PriorityQueue<CamelType> types) {
+    public long generateCamels(CamelType type, PriorityQueue<CamelType> types) {
         Optional<CamelType> res = types.stream().min(Comparator.comparingDouble(CamelType::getProportion));
         double minProportion = type.getProportion();
         if (res.isPresent()) {
             minProportion = res.get().getProportion();
         }
         long amount = Math.round(1 / minProportion + 0.5) * MAGIC_NUMBER;
-        Set<Camel> result = new HashSet<>();
+        long result = 0;
 
         for (CamelType camelType : types) {
+            long count = Math.round(camelType.getProportion() * amount);
+            getPool(camelType).addVirtual(count);
+            camelsCount += count;
             if (camelType.getName().equals(type.getName())) {
-                result = generateCamels(camelType, Math.round(camelType.getProportion() * amount));
-                camels.addAll(result);
-            } else {
-                camels.addAll(generateCamels(camelType, Math.round(camelType.getProportion() * amount)));
+                result = count;
             }
         }
 
-        return result.stream().toList();
+        return result;
     }
 
     /**
      * Specified type camels getter
      *
      * @param type camels type to het
-     * @return camels with specified type
+     * @return handles of materialized camels with specified type ordered by speed
      */
-    public List<Camel> getCamelsByType(CamelType type) {
-        return camels.stream().filter(c -> c.getType().equals(type)).toList();
+    public int[] getCamelsByType(CamelType type) {
+        CamelPool pool = camels.get(type.getName());
+        return pool == null ? new int[0] : pool.toArray();
+    }
+
+    /**
+     * Finds the slowest idle camel of the type that fits the requirements (in O(log n)) <br>
+     * If no materialized camel fits, virtual camels are materialized one by one until one of them fits
+     *
+     * @param type        camel type
+     * @param minSpeed    minimal camel speed
+     * @param minDistance minimal camel distance
+     * @return fitting camel handle (it stays in the warehouse), -1 if there is no such camel
+     */
+    public int findCamel(CamelType type, double minSpeed, double minDistance) {
+        CamelPool pool = camels.get(type.getName());
+        if (pool == null) {
+            return -1;
+        }
+        int camel = pool.findFit(minSpeed, minDistance);
+        while (camel < 0 && pool.getVirtualCount() > 0) {
+            int created = camelStore.create(type, this.id, sampler);
+            pool.materialize(created);
+            if (camelStore.getSpeed(created) >= minSpeed && camelStore.getDistance(created) >= minDistance) {
+                camel = created;
+            }
+        }
+        return camel;
     }
 
     /**
      * Remove specified camel from the warehouse
      *
-     * @param camel camel to remove
+     * @param camel handle of the camel to remove
      */
-    public void removeCamel(Camel camel) {
-        camels.remove(camel);
+    public void removeCamel(int camel) {
+        CamelPool pool = camels.get(camelStore.getType(camel).getName());
+        if (pool != null && pool.remove(camel)) {
+            --camelsCount;
+        }
     }
 
     /**
      * Return specified camel to the warehouse
      *
-     * @param camel camel to return
+     * @param camel handle of the camel to return
      */
-    public void returnCamel(Camel camel) {
-        camels.add(camel);
+    public void returnCamel(int camel) {
+        getPool(camelStore.getType(camel)).add(camel);
+        ++camelsCount;
     }
 
     /**
@@ -0,0 +1,201 @@
+package com.vpavlov.simulation.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Warehouses ordered by priority (descending) <br>
+ * Warehouses update their position whenever their priority changes (in O(log W)), so the ranking is never sorted again.
+ * Ties are ordered the same way as the stable sort of the previous order would order them:
+ * every warehouse keeps the key of its position from the last iteration until the next iteration starts,
+ * only then the keys of the moved warehouses are updated. <br>
+ * Iterators are fail-fast: they must not be used after any priority change.
+ *
+ * @author vpavlov
+ */
+public class WarehouseRanking implements Iterable<Warehouse> {
+
+    /**
+     * Order of the ranking (priority, then position from the last iteration)
+     */
+    private static final Comparator<Warehouse> ORDER = (first, second) -> {
+        int result = first.compareTo(second);
+        if (result == 0) {
+            result = Double.compare(first.rankKey, second.rankKey);
+        }
+        return result != 0 ? result : Integer.compare(first.getId(), second.getId());
+    };
+
+    /**
+     * Ranked warehouses
+     */
+    private final NavigableSet<Warehouse> ranking = new TreeSet<>(ORDER);
+
+    /**
+     * Warehouses which priority has changed since the last iteration
+     */
+    private final List<Warehouse> moved = new ArrayList<>();
+
+    /**
+     * Warehouses in order of adding
+     */
+    private final List<Warehouse> warehouses = new ArrayList<>();
+
+    /**
+     * Key for the next added warehouse (greater than all keys in the ranking)
+     */
+    private double nextKey = 0;
+
+    /**
+     * Adds the warehouse into the ranking (after all already ranked warehouses with the same priority) <br>
+     * Warehouse can be ranked only by one ranking
+     *
+     * @param warehouse warehouse to add
+     * @throws IllegalStateException if the warehouse is already ranked
+     */
+    public void add(Warehouse warehouse) throws IllegalStateException {
+        warehouse.setRanking(this);
+        warehouse.rankKey = nextKey++;
+        ranking.add(warehouse);
+        warehouses.add(warehouse);
+        markMoved(warehouse);
+    }
+
+    /**
+     * Removes the warehouse before its priority changes
+     *
+     * @param warehouse warehouse to remove
+     */
+    void remove(Warehouse warehouse) {
+        ranking.remove(warehouse);
+    }
+
+    /**
+     * Adds the warehouse back after its priority has changed
+     *
+     * @param warehouse warehouse to add
+     */
+    void reinsert(Warehouse warehouse) {
+        ranking.add(warehouse);
+        markMoved(warehouse);
+    }
+
+    /**
+     * Helper method <br>
+     * Remembers the warehouse which keys must be updated before the next iteration
+     *
+     * @param warehouse moved warehouse
+     */
+    private void markMoved(Warehouse warehouse) {
+        if (!warehouse.rankMoved) {
+            warehouse.rankMoved = true;
+            moved.add(warehouse);
+        }
+    }
+
+    /**
+     * Helper method <br>
+     * Updates keys of the moved warehouses, so the keys are ascending in the ranking order again <br>
+     * Every run of moved warehouses gets keys spread between the keys of its unmoved neighbours.
+     * Keys are changed in place, because the relative order of the warehouses does not change.
+     */
+    private void updateKeys() {
+        if (moved.isEmpty()) {
+            return;
+        }
+        moved.sort(ORDER);
+        for (Warehouse warehouse : moved) {
+            if (!warehouse.rankMoved) {
+                continue;
+            }
+            Warehouse previous = ranking.lower(warehouse);
+            List<Warehouse> run = new ArrayList<>();
+            Warehouse next = warehouse;
+            while (next != null && next.rankMoved) {
+                run.add(next);
+                next = ranking.higher(next);
+            }
+            double low;
+            double high;
+            if (previous == null && next == null) {
+                low = -1;
+                high = run.size();
+            } else if (previous == null) {
+                high = next.rankKey;
+                low = high - run.size() - 1;
+            } else if (next == null) {
+                low = previous.rankKey;
+                high = low + run.size() + 1;
+            } else {
+                low = previous.rankKey;
+                high = next.rankKey;
+            }
+            double step = (high - low) / (run.size() + 1);
+            for (int i = 0; i < run.size(); i++) {
+                Warehouse w = run.get(i);
+                w.rankKey = low + step * (i + 1);
+                w.rankMoved = false;
+            }
+            if (!(low + step > low) || !(high - step < high)) {
+                renumber();
+            }
+        }
+        moved.clear();
+        nextKey = ranking.last().rankKey + 1;
+    }
+
+    /**
+     * Helper method <br>
+     * Renumbers keys of all warehouses in the ranking order (when the gaps between keys are too small)
+     */
+    private void renumber() {
+        double key = 0;
+        for (Warehouse warehouse : ranking) {
+            warehouse.rankKey = key++;
+        }
+    }
+
+    /**
+     * Warehouses getter
+     *
+     * @return read only list of warehouses in order of adding (does not depend on priorities)
+     */
+    public List<Warehouse> getWarehouses() {
+        return Collections.unmodifiableList(warehouses);
+    }
+
+    /**
+     * Sorts the warehouses in the ranking order (the same order as the ranking iterator would return them)
+     *
+     * @param list ranked warehouses to sort
+     */
+    public void sort(List<Warehouse> list) {
+        updateKeys();
+        list.sort(ORDER);
+    }
+
+    /**
+     * Ranked warehouses count getter
+     *
+     * @return count of ranked warehouses
+     */
+    public int size() {
+        return ranking.size();
+    }
+
+    /**
+     * Iterator over the warehouses by priority (from the highest)
+     *
+     * @return read only iterator
+     */
+    @Override
+    public Iterator<Warehouse> iterator() {
+        updateKeys();
+        return Collections.unmodifiableSet(ranking).iterator();
+    }
+}